@@ -0,0 +1,78 @@
+package com.yato.bench;
+
+import com.yato.urlShortenerb.service.AnalyticsService;
+import com.yato.urlShortenerb.service.impl.AnalyticsPartitionMaintainer;
+import com.yato.urlShortenerb.service.impl.RollupBackfillJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AnalyticsService.getAnalytics over synthetic histories of increasing size.
+ * The overview cache is off, so every invocation runs the queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final String EMAIL = "analytics-bench@example.com";
+    private static final int URLS = 1_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int events;
+
+    private BenchmarkApp app;
+    private AnalyticsService analyticsService;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        app = BenchmarkApp.start("--app.cache.analytics.ttl=0s");
+        long userId = app.createUser(EMAIL);
+        app.createUrls(userId, URLS);
+
+        app.bean(AnalyticsPartitionMaintainer.class).ensurePartitions(YearMonth.now().minusMonths(3), YearMonth.now());
+        app.jdbc().update("""
+                INSERT INTO analytics_user_agent (value)
+                VALUES ('Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/120.0'),
+                       ('Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148'),
+                       ('Mozilla/5.0 (compatible; Googlebot/2.1)')
+                ON CONFLICT (value) DO NOTHING
+                """);
+        app.jdbc().update("""
+                INSERT INTO analytics_referrer (value)
+                VALUES ('https://www.google.com/'), ('https://t.co/abc')
+                ON CONFLICT (value) DO NOTHING
+                """);
+        // A third of the events get a referrer id past the end of the array, i.e. NULL (direct)
+        app.jdbc().update("""
+                WITH ids AS (SELECT array_agg(id ORDER BY id) AS a FROM urls WHERE user_id = ?),
+                     ua AS (SELECT array_agg(id ORDER BY id) AS a FROM analytics_user_agent),
+                     rf AS (SELECT array_agg(id ORDER BY id) AS a FROM analytics_referrer)
+                INSERT INTO analytics_event (url_id, timestamp, user_agent_id, referrer_id)
+                SELECT ids.a[1 + g % array_length(ids.a, 1)],
+                       now() - (g % 90) * interval '1 day',
+                       ua.a[1 + g % 3],
+                       rf.a[1 + g % 3]
+                FROM generate_series(1, ?) g, ids, ua, rf
+                """, userId, events);
+
+        app.bean(RollupBackfillJob.class).run();
+        analyticsService = app.bean(AnalyticsService.class);
+    }
+
+    @Benchmark
+    public Object overview() {
+        return analyticsService.getAnalytics(EMAIL).getBody();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.close();
+    }
+}
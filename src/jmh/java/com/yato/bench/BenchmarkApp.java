@@ -0,0 +1,110 @@
+package com.yato.bench;
+
+import com.yato.urlShortenerb.UrlShortenerbApplication;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Boots the full application against an embedded Postgres so benchmarks run
+ * the real SQL, including the Postgres-specific upserts and advisory locks.
+ * Each run gets its own short code index and click log directories, so no
+ * state carries over from an earlier run against a different database.
+ */
+public final class BenchmarkApp implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+    private final Path dataDir;
+
+    private BenchmarkApp(EmbeddedPostgres postgres, ConfigurableApplicationContext context, Path dataDir) {
+        this.postgres = postgres;
+        this.context = context;
+        this.dataDir = dataDir;
+    }
+
+    public static BenchmarkApp start(String... extraArgs) throws IOException {
+        return start(new Class<?>[0], extraArgs);
+    }
+
+    public static BenchmarkApp start(Class<?>[] extraSources, String... extraArgs) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+        Path dataDir = Files.createTempDirectory("urlshortener-bench");
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.profiles.active=bench",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--app.jwt.secret=benchmark-secret-benchmark-secret-benchmark-secret",
+                "--logging.level.root=WARN",
+                "--logging.level.com.yato.urlShortenerb=WARN",
+                "--app.index.dir=" + dataDir.resolve("short-code-index"),
+                "--app.clicks.log.dir=" + dataDir.resolve("click-log")
+        ));
+        args.addAll(List.of(extraArgs));
+        List<Class<?>> sources = new ArrayList<>(List.of(UrlShortenerbApplication.class));
+        sources.addAll(List.of(extraSources));
+        ConfigurableApplicationContext context =
+                SpringApplication.run(sources.toArray(Class<?>[]::new), args.toArray(String[]::new));
+        return new BenchmarkApp(postgres, context, dataDir);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    public long createUser(String email) {
+        return jdbc().queryForObject(
+                "INSERT INTO users (email, password) VALUES (?, 'benchmark') RETURNING id",
+                Long.class, email);
+    }
+
+    /** Inserts {@code count} urls with codes b000001, b000002, ... */
+    public void createUrls(long userId, int count) {
+        jdbc().update("""
+                INSERT INTO urls (id, user_id, short_code, long_url, click_count, crt_at)
+                SELECT nextval('urls_seq'), ?, 'b' || lpad(g::text, 6, '0'), 'https://example.com/' || g, 0, now()
+                FROM generate_series(1, ?) g
+                """, userId, count);
+    }
+
+    /** Makes rows inserted behind the application's back visible to the Bloom filter guard. */
+    public void rebuildShortCodeFilter() throws InterruptedException {
+        ShortCodeFilter filter = bean(ShortCodeFilter.class);
+        while (!filter.stats().ready()) {
+            Thread.sleep(50);
+        }
+        filter.rebuild();
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
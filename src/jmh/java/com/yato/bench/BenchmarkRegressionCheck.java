@@ -0,0 +1,67 @@
+package com.yato.bench;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and exits non-zero when any benchmark
+ * got slower than the allowed percentage.
+ *
+ * Usage: BenchmarkRegressionCheck baseline.json current.json [maxRegressionPercent]
+ */
+public final class BenchmarkRegressionCheck {
+
+    private BenchmarkRegressionCheck() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRegressionCheck baseline.json current.json [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, Map<String, Object>> baseline = load(new File(args[0]));
+        Map<String, Map<String, Object>> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+            Map<String, Object> before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            double old = score(before);
+            double now = score(entry.getValue());
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode"));
+            double change = (higherIsBetter ? old - now : now - old) / old * 100;
+
+            String verdict = change > maxRegression ? "REGRESSION" : "ok";
+            System.out.printf("%-10s %-80s %12.3f -> %12.3f (%+.1f%% worse)%n", verdict, entry.getKey(), old, now, change);
+            if (change > maxRegression) {
+                regressions++;
+            }
+        }
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> load(File file) {
+        List<Map<String, Object>> runs = new ObjectMapper().readValue(file, List.class);
+        Map<String, Map<String, Object>> byKey = new HashMap<>();
+        for (Map<String, Object> run : runs) {
+            String key = run.get("benchmark") + String.valueOf(run.getOrDefault("params", ""));
+            byKey.put(key, run);
+        }
+        return byKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double score(Map<String, Object> run) {
+        Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+        return ((Number) metric.get("score")).doubleValue();
+    }
+}
@@ -0,0 +1,69 @@
+package com.yato.bench;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.config.JWTUtils;
+import com.yato.urlShortenerb.dto.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JWTUtils cached;
+    private JWTUtils uncached;
+    private String token;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        cached = jwtUtils(Duration.ofMinutes(15));
+        // A zero TTL makes every lookup miss, exercising the full HMAC verification
+        uncached = jwtUtils(Duration.ZERO);
+        token = cached.generateToken("bench@example.com");
+    }
+
+    @Benchmark
+    public String sign() {
+        return cached.generateToken("bench@example.com");
+    }
+
+    @Benchmark
+    public Optional<String> verifyCached() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public Optional<String> verifyUncached() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public String parseSubject() {
+        return uncached.getEmailFromToken(token);
+    }
+
+    private static JWTUtils jwtUtils(Duration cacheTtl) throws ReflectiveOperationException {
+        JWTUtils utils = new JWTUtils(new BoundedTtlCache<String, VerifiedToken>(10_000, cacheTtl));
+        set(utils, "jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret");
+        set(utils, "jwtExpirationMs", 86_400_000L);
+        Method init = JWTUtils.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(utils);
+        return utils;
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,56 @@
+package com.yato.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end GET /s/{code} over HTTP: known code (hit) and unknown code (miss).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class RedirectBenchmark {
+
+    @Param({"hit", "miss"})
+    public String scenario;
+
+    private BenchmarkApp app;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        app = BenchmarkApp.start();
+        long userId = app.createUser("redirect-bench@example.com");
+        app.createUrls(userId, 1_000);
+        app.rebuildShortCodeFilter();
+
+        String code = "hit".equals(scenario) ? "b000001" : "zzzzzzz";
+        client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + "/s/" + code))
+                .GET()
+                .build();
+    }
+
+    @Benchmark
+    public int redirect() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        app.close();
+    }
+}
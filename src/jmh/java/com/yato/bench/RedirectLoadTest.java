@@ -0,0 +1,110 @@
+package com.yato.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares redirects/sec between platform and virtual request threads against
+ * a database with injected latency. The short code cache and the mapped index
+ * are both off, so every request blocks on JDBC.
+ *
+ * Usage: RedirectLoadTest [concurrency] [seconds] [dbLatencyMs]
+ * Writes target/loadtest-result.json.
+ */
+public final class RedirectLoadTest {
+
+    private static final int URLS = 10_000;
+
+    private RedirectLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        List<String> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            Result result = run(virtual, concurrency, seconds, latencyMs);
+            System.out.printf("%-8s %8.0f redirects/s  %6d ok  %6d busy  %6d errors%n",
+                    result.mode, result.perSecond(), result.ok, result.busy, result.errors);
+            results.add(result.toJson());
+        }
+
+        Path out = Path.of("target", "loadtest-result.json");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, "[" + String.join(",", results) + "]");
+    }
+
+    private static Result run(boolean virtual, int concurrency, int seconds, long latencyMs) throws Exception {
+        try (BenchmarkApp app = BenchmarkApp.start(
+                new Class<?>[]{SlowDatabaseConfig.class},
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--bench.db-latency-ms=" + latencyMs,
+                "--app.cache.short-code.ttl=0s",
+                "--app.index.enabled=false")) {
+            long userId = app.createUser("load-" + virtual + "@example.com");
+            app.createUrls(userId, URLS);
+            app.rebuildShortCodeFilter();
+
+            String base = "http://localhost:" + app.port() + "/s/";
+            LongAdder ok = new LongAdder();
+            LongAdder busy = new LongAdder();
+            LongAdder errors = new LongAdder();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            String code = String.format("b%06d", 1 + ThreadLocalRandom.current().nextInt(URLS));
+                            try {
+                                int status = client.send(HttpRequest.newBuilder(URI.create(base + code)).GET().build(),
+                                        HttpResponse.BodyHandlers.discarding()).statusCode();
+                                if (status == 302) {
+                                    ok.increment();
+                                } else if (status == 503) {
+                                    busy.increment();
+                                } else {
+                                    errors.increment();
+                                }
+                            } catch (IOException | InterruptedException e) {
+                                errors.increment();
+                            }
+                        }
+                    });
+                }
+            }
+            return new Result(virtual ? "virtual" : "platform", seconds, ok.sum(), busy.sum(), errors.sum());
+        }
+    }
+
+    private record Result(String mode, int seconds, long ok, long busy, long errors) {
+
+        double perSecond() {
+            return (double) ok / seconds;
+        }
+
+        String toJson() {
+            return String.format("{\"mode\":\"%s\",\"seconds\":%d,\"redirectsPerSecond\":%.1f,\"ok\":%d,\"busy\":%d,\"errors\":%d}",
+                    mode, seconds, perSecond(), ok, busy, errors);
+        }
+    }
+}
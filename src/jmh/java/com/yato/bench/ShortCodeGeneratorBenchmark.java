@@ -0,0 +1,35 @@
+package com.yato.bench;
+
+import com.yato.urlShortenerb.util.Base62;
+import com.yato.urlShortenerb.util.CodeScrambler;
+import com.yato.urlShortenerb.util.ShortCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortCodeGeneratorBenchmark {
+
+    private final CodeScrambler scrambler = new CodeScrambler(Base62.keyspace(7), 0);
+    private long counter;
+
+    @Benchmark
+    public String random() {
+        return ShortCodeGenerator.generate();
+    }
+
+    @Benchmark
+    public String counter() {
+        return Base62.encode(counter++ % Base62.keyspace(7), 7);
+    }
+
+    @Benchmark
+    public String scrambledCounter() {
+        return Base62.encode(scrambler.scramble(counter++ % Base62.keyspace(7)), 7);
+    }
+}
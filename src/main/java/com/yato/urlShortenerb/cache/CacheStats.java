@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.cache;
+
+public record CacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long size
+) {}
@@ -0,0 +1,110 @@
+package com.yato.urlShortenerb.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Approximate click statistics of one url or one user, all mergeable and of
+ * bounded size whatever the number of clicks: unique visitors in a
+ * {@link HyperLogLog}, top referrer hosts and top links in {@link SpaceSaving}
+ * summaries and the time of day of clicks, in seconds, in a {@link TDigest}.
+ * Links are only tracked on user sketches. Not thread-safe.
+ */
+public class ClickSketch {
+
+    private static final byte VERSION = 1;
+
+    // About 1.6% standard error in 4 KiB once dense; sketches of different precision cannot be merged
+    private static final int VISITOR_PRECISION = 12;
+    private static final int TRACKED_REFERRERS = 64;
+    private static final int TRACKED_LINKS = 64;
+    private static final double TIME_COMPRESSION = 100;
+
+    private long clicks;
+    private final HyperLogLog visitors;
+    private final SpaceSaving referrers;
+    private final SpaceSaving links;
+    private final TDigest clickTimes;
+
+    public ClickSketch() {
+        this(0, new HyperLogLog(VISITOR_PRECISION), new SpaceSaving(TRACKED_REFERRERS),
+                new SpaceSaving(TRACKED_LINKS), new TDigest(TIME_COMPRESSION));
+    }
+
+    private ClickSketch(long clicks, HyperLogLog visitors, SpaceSaving referrers, SpaceSaving links, TDigest clickTimes) {
+        this.clicks = clicks;
+        this.visitors = visitors;
+        this.referrers = referrers;
+        this.links = links;
+        this.clickTimes = clickTimes;
+    }
+
+    /** Adds one click; a visitor hash of 0 means the visitor is unknown and is not counted. */
+    public void add(long visitorHash, String referrerHost, int secondOfDay) {
+        clicks++;
+        if (visitorHash != 0) {
+            visitors.add(visitorHash);
+        }
+        referrers.add(referrerHost, 1);
+        clickTimes.add(secondOfDay);
+    }
+
+    /** Folds a url's sketch into this user sketch and counts its clicks towards the top links. */
+    public void addUrl(long urlId, ClickSketch url) {
+        merge(url);
+        links.add(Long.toString(urlId), url.clicks);
+    }
+
+    public void merge(ClickSketch other) {
+        clicks += other.clicks;
+        visitors.merge(other.visitors);
+        referrers.merge(other.referrers);
+        links.merge(other.links);
+        clickTimes.merge(other.clickTimes);
+    }
+
+    public long clicks() {
+        return clicks;
+    }
+
+    public HyperLogLog visitors() {
+        return visitors;
+    }
+
+    public SpaceSaving referrers() {
+        return referrers;
+    }
+
+    public SpaceSaving links() {
+        return links;
+    }
+
+    public TDigest clickTimes() {
+        return clickTimes;
+    }
+
+    public byte[] toBytes() {
+        byte[] visitorBytes = visitors.toBytes();
+        byte[] referrerBytes = referrers.toBytes();
+        byte[] linkBytes = links.toBytes();
+        byte[] timeBytes = clickTimes.toBytes();
+        return ByteBuffer.allocate(1 + 8 + visitorBytes.length + referrerBytes.length + linkBytes.length + timeBytes.length)
+                .put(VERSION).putLong(clicks)
+                .put(visitorBytes).put(referrerBytes).put(linkBytes).put(timeBytes)
+                .array();
+    }
+
+    /** Throws IllegalArgumentException for bytes it cannot read. */
+    public static ClickSketch fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown click sketch version " + version);
+            }
+            return new ClickSketch(buffer.getLong(), HyperLogLog.fromBytes(buffer), SpaceSaving.fromBytes(buffer),
+                    SpaceSaving.fromBytes(buffer), TDigest.fromBytes(buffer));
+        } catch (RuntimeException e) {
+            throw e instanceof IllegalArgumentException iae ? iae : new IllegalArgumentException("Malformed click sketch", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.yato.urlShortenerb.cache;
+
+/** Sizing and hashing shared by the primitive open-addressing maps. */
+final class HashMaps {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private HashMaps() {
+    }
+
+    static int capacityFor(int expectedSize, float loadFactor) {
+        long wanted = Math.max(4, (long) Math.ceil(expectedSize / loadFactor) + 1);
+        if (wanted >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    // Murmur3 finalizer: url ids are sequential and packed codes share their top bits
+    static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb53fe6ecbd53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
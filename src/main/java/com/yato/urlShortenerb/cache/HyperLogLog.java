@@ -0,0 +1,164 @@
+package com.yato.urlShortenerb.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter over 64-bit hashes with {@code 2^precision}
+ * registers. Sketches start sparse, as a sorted array of (register, rank)
+ * entries, and switch to one byte per register once that would be larger,
+ * so the many sketches that only ever see a few values stay small.
+ * Merging takes the per-register maximum, so it is exact and idempotent.
+ * Not thread-safe.
+ */
+public class HyperLogLog {
+
+    private static final byte VERSION = 1;
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+
+    private final int precision;
+    private final int registerCount;
+    // Sparse entries are register << 8 | rank, sorted by register
+    private int[] sparse = new int[4];
+    private int sparseSize;
+    private byte[] dense;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        set(register, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and " + other.precision);
+        }
+        if (other.dense != null) {
+            for (int r = 0; r < registerCount; r++) {
+                if (other.dense[r] != 0) {
+                    set(r, other.dense[r]);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xff);
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (dense != null) {
+            for (byte rank : dense) {
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += Math.scalb(1.0, -(sparse[i] & 0xff));
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public byte[] toBytes() {
+        if (dense != null) {
+            return ByteBuffer.allocate(3 + registerCount)
+                    .put(VERSION).put((byte) precision).put(DENSE).put(dense)
+                    .array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(3 + 4 + sparseSize * 4)
+                .put(VERSION).put((byte) precision).put(SPARSE).putInt(sparseSize);
+        for (int i = 0; i < sparseSize; i++) {
+            buffer.putInt(sparse[i]);
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown HyperLogLog version " + version);
+        }
+        HyperLogLog hll = new HyperLogLog(buffer.get());
+        if (buffer.get() == DENSE) {
+            hll.dense = new byte[hll.registerCount];
+            buffer.get(hll.dense);
+            hll.sparse = null;
+        } else {
+            int size = buffer.getInt();
+            if (size < 0 || size > hll.registerCount) {
+                throw new IllegalArgumentException("Corrupt sparse HyperLogLog of " + size + " entries");
+            }
+            hll.sparse = new int[Math.max(4, size)];
+            for (int i = 0; i < size; i++) {
+                hll.sparse[i] = buffer.getInt();
+            }
+            hll.sparseSize = size;
+        }
+        return hll;
+    }
+
+    private void set(int register, int rank) {
+        if (dense != null) {
+            if (rank > dense[register]) {
+                dense[register] = (byte) rank;
+            }
+            return;
+        }
+        int at = Arrays.binarySearch(sparse, 0, sparseSize, register << 8);
+        int index = at >= 0 ? at : -at - 1;
+        // The search key has rank 0, so an existing entry sorts at or right after it
+        if (index < sparseSize && sparse[index] >>> 8 == register) {
+            if (rank > (sparse[index] & 0xff)) {
+                sparse[index] = register << 8 | rank;
+            }
+            return;
+        }
+        // Four bytes per sparse entry against one per dense register
+        if (sparseSize + 1 > registerCount / 4) {
+            toDense();
+            set(register, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparseSize * 2);
+        }
+        System.arraycopy(sparse, index, sparse, index + 1, sparseSize - index);
+        sparse[index] = register << 8 | rank;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        dense = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 8] = (byte) (sparse[i] & 0xff);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+}
@@ -0,0 +1,207 @@
+package com.yato.urlShortenerb.cache;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long to long map with linear probing, so keys and values
+ * are never boxed. Absent keys read as the {@code missingValue} given at
+ * construction. Not thread-safe.
+ */
+public class LongLongHashMap {
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, long value);
+    }
+
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final long missingValue;
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int resizeAt;
+
+    // Key 0 marks a free slot, so its mapping is kept on the side
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap(int expectedSize, long missingValue) {
+        this.missingValue = missingValue;
+        allocate(HashMaps.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public long get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int mask = keys.length - 1;
+        for (int slot = HashMaps.slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return values[slot];
+            }
+            if (k == 0) {
+                return missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int mask = keys.length - 1;
+        for (int slot = HashMaps.slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return true;
+            }
+            if (k == 0) {
+                return false;
+            }
+        }
+    }
+
+    /** Returns the previous value, or the missing value if there was none. */
+    public long put(long key, long value) {
+        if (key == 0) {
+            long previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        for (int slot = HashMaps.slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (k == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length * 2);
+                }
+                return missingValue;
+            }
+        }
+    }
+
+    /** Adds {@code delta} to the value of {@code key}, treating an absent key as 0, and returns the new value. */
+    public long addTo(long key, long delta) {
+        if (key == 0) {
+            long updated = (hasZeroKey ? zeroValue : 0) + delta;
+            put(0, updated);
+            return updated;
+        }
+        int mask = keys.length - 1;
+        for (int slot = HashMaps.slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return values[slot] += delta;
+            }
+            if (k == 0) {
+                keys[slot] = key;
+                values[slot] = delta;
+                if (++size > resizeAt) {
+                    rehash(keys.length * 2);
+                }
+                return delta;
+            }
+        }
+    }
+
+    /** Returns the removed value, or the missing value if there was none. */
+    public long remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return missingValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int mask = keys.length - 1;
+        for (int slot = HashMaps.slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == 0) {
+                return missingValue;
+            }
+            if (k == key) {
+                long previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    public void forEach(Entry consumer) {
+        if (hasZeroKey) {
+            consumer.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    // Backward-shift deletion keeps every probe chain intact without tombstones
+    private void shiftBack(int free) {
+        int mask = keys.length - 1;
+        for (int slot = (free + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            int home = HashMaps.slot(keys[slot], mask);
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                free = slot;
+            }
+        }
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = HashMaps.slot(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
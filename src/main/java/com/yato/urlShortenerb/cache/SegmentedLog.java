@@ -0,0 +1,443 @@
+package com.yato.urlShortenerb.cache;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records split into numbered segment files. Each
+ * record is framed as length, CRC32C and payload. Appends are positional
+ * writes into the page cache under a short lock; {@link #sync()} forces the
+ * active segment to disk outside that lock, so calling it on an interval
+ * turns many appends into one fsync. A segment is forced and sealed once it
+ * reaches {@code segmentBytes}, and every open starts a fresh one.
+ * <p>
+ * A single reader tails the log from a {@link Position} and persists its
+ * progress with {@link #commit(Position)}, which deletes the segments it has
+ * moved past. A torn tail left by a crash between write and fsync is cut off
+ * when the log is opened; a corrupt record in a sealed segment skips the rest
+ * of that segment.
+ */
+public class SegmentedLog implements Closeable {
+
+    public record Position(long segment, long offset) {}
+
+    private static final int FRAME_HEADER = 8;
+    private static final int READ_CHUNK = 1 << 20;
+    public static final int MAX_RECORD = READ_CHUNK - FRAME_HEADER;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int CHECKPOINT_MAGIC = 0x434c4f47;
+    private static final int CHECKPOINT_BYTES = 4 + 8 + 8 + 4;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CRC32C writeCrc = new CRC32C();
+    // Reader state, only touched by the single reader
+    private final CRC32C readCrc = new CRC32C();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_CHUNK);
+
+    private ByteBuffer frame = ByteBuffer.allocateDirect(4096);
+    private FileChannel active;
+    private long activeSegment;
+    private long activeEnd;
+    private long oldestSegment;
+    private long sealedBytes;
+    private boolean dirty;
+    private long corruptSegments;
+    private volatile Position committed;
+
+    private SegmentedLog(Path dir, long segmentBytes, long maxBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the log in {@code dir}, creating it if needed. Appends are refused
+     * once the segments not yet committed past add up to {@code maxBytes}.
+     */
+    public static SegmentedLog open(Path dir, long segmentBytes, long maxBytes) throws IOException {
+        if (segmentBytes < READ_CHUNK || maxBytes < segmentBytes) {
+            throw new IllegalArgumentException("segmentBytes must be at least 1 MiB and no larger than maxBytes");
+        }
+        Files.createDirectories(dir);
+        SegmentedLog log = new SegmentedLog(dir, segmentBytes, maxBytes);
+        List<Long> segments = listSegments(dir);
+        Position checkpoint = readCheckpoint(dir);
+        long first = segments.isEmpty() ? 0 : segments.getFirst();
+        if (checkpoint == null || checkpoint.segment() < first) {
+            checkpoint = new Position(first, 0);
+        }
+
+        long last = -1;
+        for (long segment : segments) {
+            Path file = log.segmentPath(segment);
+            // Left behind by a crash between commit and delete
+            if (segment < checkpoint.segment()) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            if (segment == segments.getLast()) {
+                log.truncateTornTail(file);
+            }
+            log.sealedBytes += Files.size(file);
+            last = segment;
+        }
+        log.committed = checkpoint;
+        log.oldestSegment = checkpoint.segment();
+        // The previous active segment may have lost unsynced records the checkpoint already points past
+        log.activeSegment = Math.max(last + 1, checkpoint.segment() + 1);
+        log.active = log.openSegment(log.activeSegment);
+        return log;
+    }
+
+    /**
+     * Appends {@code payload} and returns false without writing if the log is
+     * full. The record is only durable after the next {@link #sync()}.
+     */
+    public boolean append(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length > MAX_RECORD) {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds " + MAX_RECORD);
+        }
+        int frameLength = FRAME_HEADER + length;
+        lock.lock();
+        try {
+            if (active == null) {
+                throw new ClosedChannelException();
+            }
+            if (sealedBytes + activeEnd + frameLength > maxBytes) {
+                return false;
+            }
+            if (activeEnd > 0 && activeEnd + frameLength > segmentBytes) {
+                roll();
+            }
+            if (frame.capacity() < frameLength) {
+                frame = ByteBuffer.allocateDirect(Integer.highestOneBit(frameLength - 1) << 1);
+            }
+            writeCrc.reset();
+            writeCrc.update(payload.duplicate());
+            frame.clear();
+            frame.putInt(length).putInt((int) writeCrc.getValue()).put(payload).flip();
+            // activeEnd only moves once the whole frame is written, so a failed write is overwritten by the next one
+            long end = activeEnd;
+            while (frame.hasRemaining()) {
+                end += active.write(frame, end);
+            }
+            activeEnd = end;
+            dirty = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Forces appended records to disk. Appends are not blocked while the fsync runs. */
+    public void sync() throws IOException {
+        FileChannel channel;
+        lock.lock();
+        try {
+            if (!dirty || active == null) {
+                return;
+            }
+            dirty = false;
+            channel = active;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Rolled or closed meanwhile, both force the segment first
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Hands up to {@code maxRecords} payloads after {@code from} to
+     * {@code consumer} and returns the position after the last one. Payloads
+     * are views of a reused buffer and must be decoded before returning. Only
+     * one thread may read.
+     */
+    public Position read(Position from, int maxRecords, Consumer<ByteBuffer> consumer) throws IOException {
+        Position position = from;
+        int[] count = {0};
+        Consumer<ByteBuffer> counting = payload -> {
+            count[0]++;
+            consumer.accept(payload);
+        };
+        while (count[0] < maxRecords) {
+            long end;
+            boolean sealed;
+            lock.lock();
+            try {
+                if (position.segment() > activeSegment) {
+                    return position;
+                }
+                sealed = position.segment() < activeSegment;
+                end = activeEnd;
+            } finally {
+                lock.unlock();
+            }
+
+            long offset;
+            try (FileChannel channel = FileChannel.open(segmentPath(position.segment()), StandardOpenOption.READ)) {
+                if (sealed) {
+                    end = channel.size();
+                }
+                offset = scan(channel, position.offset(), end, maxRecords - count[0], counting);
+            } catch (NoSuchFileException e) {
+                if (!sealed) {
+                    throw e;
+                }
+                offset = Long.MAX_VALUE;
+            }
+
+            if (!sealed) {
+                if (offset < end && count[0] < maxRecords) {
+                    throw new IOException("Corrupt record in active segment " + position.segment() + " at " + offset);
+                }
+                return new Position(position.segment(), offset);
+            }
+            if (offset < end && count[0] < maxRecords) {
+                lock.lock();
+                try {
+                    corruptSegments++;
+                } finally {
+                    lock.unlock();
+                }
+                offset = end;
+            }
+            position = offset >= end ? new Position(position.segment() + 1, 0) : new Position(position.segment(), offset);
+        }
+        return position;
+    }
+
+    /** Persists the reader's position and deletes the segments before it. */
+    public void commit(Position position) throws IOException {
+        Path checkpoint = dir.resolve(CHECKPOINT_FILE);
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        buffer.putInt(CHECKPOINT_MAGIC).putLong(position.segment()).putLong(position.offset());
+        writeCrc(buffer);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = position;
+
+        long deleteBefore;
+        long from;
+        lock.lock();
+        try {
+            from = oldestSegment;
+            deleteBefore = Math.min(position.segment(), activeSegment);
+            oldestSegment = Math.max(oldestSegment, deleteBefore);
+        } finally {
+            lock.unlock();
+        }
+        long freed = 0;
+        for (long segment = from; segment < deleteBefore; segment++) {
+            Path file = segmentPath(segment);
+            if (Files.exists(file)) {
+                freed += Files.size(file);
+                Files.delete(file);
+            }
+        }
+        lock.lock();
+        try {
+            sealedBytes -= freed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Position of the last {@link #commit(Position)}, or the start of the oldest segment. */
+    public Position committed() {
+        return committed;
+    }
+
+    /** Bytes on disk in segments not yet committed past. */
+    public long sizeBytes() {
+        lock.lock();
+        try {
+            return sealedBytes + activeEnd;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long corruptSegments() {
+        lock.lock();
+        try {
+            return corruptSegments;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (active == null) {
+                return;
+            }
+            try {
+                active.force(false);
+            } finally {
+                active.close();
+                active = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        active.close();
+        sealedBytes += activeEnd;
+        activeSegment++;
+        activeEnd = 0;
+        dirty = false;
+        active = openSegment(activeSegment);
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Returns the offset after the last intact record; stops early on a torn or corrupt frame
+    private long scan(FileChannel channel, long offset, long end, int maxRecords, Consumer<ByteBuffer> consumer) throws IOException {
+        int records = 0;
+        while (records < maxRecords && offset < end) {
+            ByteBuffer buffer = readBuffer.clear().limit((int) Math.min(READ_CHUNK, end - offset));
+            readFully(channel, buffer, offset);
+            buffer.flip();
+            int start = buffer.position();
+            while (records < maxRecords && buffer.remaining() >= FRAME_HEADER) {
+                int at = buffer.position();
+                int length = buffer.getInt(at);
+                if (length < 0 || length > MAX_RECORD) {
+                    return offset;
+                }
+                if (buffer.remaining() < FRAME_HEADER + length) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(at + FRAME_HEADER, length);
+                readCrc.reset();
+                readCrc.update(payload.duplicate());
+                if ((int) readCrc.getValue() != buffer.getInt(at + 4)) {
+                    return offset;
+                }
+                consumer.accept(payload);
+                records++;
+                buffer.position(at + FRAME_HEADER + length);
+                offset += FRAME_HEADER + length;
+            }
+            if (buffer.position() == start) {
+                // A whole frame always fits in a chunk, so this one runs past the end
+                return offset;
+            }
+        }
+        return offset;
+    }
+
+    private void truncateTornTail(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long valid = scan(channel, 0, size, Integer.MAX_VALUE, payload -> { });
+            if (valid < size) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path dir) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static Position readCheckpoint(Path dir) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file) || Files.size(file) != CHECKPOINT_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        int magic = buffer.getInt();
+        long segment = buffer.getLong();
+        long offset = buffer.getLong();
+        int crc = buffer.getInt();
+        CRC32C expected = new CRC32C();
+        expected.update(buffer.array(), 0, CHECKPOINT_BYTES - 4);
+        if (magic != CHECKPOINT_MAGIC || crc != (int) expected.getValue() || segment < 0 || offset < 0) {
+            return null;
+        }
+        return new Position(segment, offset);
+    }
+
+    private static void writeCrc(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Segment ended before " + (position + buffer.remaining()));
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.yato.urlShortenerb.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cache shared by every replica, plus a broadcast channel for invalidations.
+ * Values are opaque strings; callers own the encoding.
+ */
+public interface SharedCache {
+
+    String get(String key);
+
+    void put(String key, String value, Duration ttl);
+
+    /** Stores the value only if the key has none, and returns whether it did. */
+    boolean putIfAbsent(String key, String value, Duration ttl);
+
+    void evict(String key);
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
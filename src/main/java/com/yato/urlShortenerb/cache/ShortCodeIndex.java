@@ -0,0 +1,507 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Memory-mapped short code index kept outside the Java heap and persisted
+ * across restarts. Two files make up the index:
+ * <ul>
+ *   <li>{@code codes.idx}: a header followed by an open-addressing table of
+ *   16-byte slots, each holding a code packed by
+ *   {@link com.yato.urlShortenerb.util.ShortCodeCodec} and an offset into the blob.
+ *   A negative offset is a tombstone for a code whose row changed.</li>
+ *   <li>{@code urls.blob}: append-only records of id, expiry, policy,
+ *   accounting and the UTF-8 long url, mapped in fixed-size chunks.</li>
+ * </ul>
+ * Lookups only allocate the returned record. Writes append and repoint slots;
+ * superseded blob records are reclaimed when the index is rebuilt. The files
+ * are marked dirty while open, so an index that was not closed cleanly, or
+ * that was built from a different database, is rejected by
+ * {@link #open(Path, long)} and has to be rebuilt.
+ * <p>
+ * Writes never grow the table: once it is three quarters full they are
+ * refused until the owner calls {@link #ensureCapacity(int)}, which builds
+ * the larger table while lookups carry on.
+ */
+public class ShortCodeIndex implements Closeable {
+
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int MAGIC = 0x53434958;
+    private static final int VERSION = 2;
+    // Records store enum ordinals, so reordering either enum invalidates existing files
+    private static final int FINGERPRINT = Objects.hash(VERSION,
+            Arrays.toString(RedirectPolicy.values()), Arrays.toString(ClickAccounting.values()));
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final long TOMBSTONE = -1;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+    private static final long BLOB_CHUNK = 1L << 28;
+    private static final int RECORD_HEADER = 8 + 8 + 1 + 1 + 4;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_FINGERPRINT = 8;
+    private static final int H_CLEAN = 12;
+    private static final int H_CAPACITY = 16;
+    private static final int H_SIZE = 20;
+    private static final int H_TOMBSTONES = 24;
+    private static final int H_BLOB_END = 32;
+    private static final int H_URL_WATERMARK = 40;
+    private static final int H_CHANGE_WATERMARK = 48;
+    private static final int H_DATABASE_ID = 56;
+
+    private static final String INDEX_FILE = "codes.idx";
+    private static final String BLOB_FILE = "urls.blob";
+
+    private final Path dir;
+    private final FileChannel blobChannel;
+    private final List<MappedByteBuffer> blobChunks = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel indexChannel;
+    private MappedByteBuffer table;
+    private int capacity;
+    private int size;
+    private int tombstones;
+    private long blobEnd;
+    // Bumped by every write, so a table built outside the write lock knows whether it missed one
+    private long modifications;
+
+    private ShortCodeIndex(Path dir, FileChannel indexChannel, MappedByteBuffer table, FileChannel blobChannel) throws IOException {
+        this.dir = dir;
+        this.indexChannel = indexChannel;
+        this.table = table;
+        this.blobChannel = blobChannel;
+        this.capacity = table.getInt(H_CAPACITY);
+        this.size = table.getInt(H_SIZE);
+        this.tombstones = table.getInt(H_TOMBSTONES);
+        this.blobEnd = table.getLong(H_BLOB_END);
+        mapBlobThrough(blobEnd);
+    }
+
+    /**
+     * Creates an empty index of database {@code databaseId} in {@code dir} sized
+     * for {@code expectedEntries}, replacing any existing files.
+     */
+    public static ShortCodeIndex create(Path dir, long expectedEntries, long databaseId) throws IOException {
+        Files.createDirectories(dir);
+        Files.deleteIfExists(dir.resolve(BLOB_FILE));
+        int capacity = capacityFor(expectedEntries);
+        Path indexFile = dir.resolve(INDEX_FILE);
+        writeTable(indexFile.resolveSibling(INDEX_FILE + ".tmp"), capacity, databaseId);
+        Files.move(indexFile.resolveSibling(INDEX_FILE + ".tmp"), indexFile,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return openFiles(dir);
+    }
+
+    /**
+     * Opens a cleanly closed index of database {@code databaseId}, or returns
+     * null if there is none or it cannot be trusted.
+     */
+    public static ShortCodeIndex open(Path dir, long databaseId) throws IOException {
+        Path indexFile = dir.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile) || !Files.exists(dir.resolve(BLOB_FILE)) || Files.size(indexFile) < HEADER_BYTES) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(H_MAGIC) != MAGIC
+                    || header.getInt(H_VERSION) != VERSION
+                    || header.getInt(H_FINGERPRINT) != FINGERPRINT
+                    || header.getInt(H_CLEAN) != 1
+                    || header.getLong(H_DATABASE_ID) != databaseId
+                    || Files.size(indexFile) != HEADER_BYTES + (long) header.getInt(H_CAPACITY) * SLOT_BYTES) {
+                return null;
+            }
+        }
+        return openFiles(dir);
+    }
+
+    private static ShortCodeIndex openFiles(Path dir) throws IOException {
+        FileChannel indexChannel = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel blobChannel = FileChannel.open(dir.resolve(BLOB_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer table = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+        table.putInt(H_CLEAN, 0);
+        table.force();
+        return new ShortCodeIndex(dir, indexChannel, table, blobChannel);
+    }
+
+    public ResolvedUrl get(long packedCode) {
+        lock.readLock().lock();
+        try {
+            int slot = find(packedCode);
+            if (slot < 0) {
+                return null;
+            }
+            long offset = table.getLong(slotOffset(slot) + 8);
+            return offset == TOMBSTONE ? null : readRecord(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores or replaces the record for {@code packedCode}. Returns false if the
+     * table needs {@link #ensureCapacity(int) growing} or the record is too large.
+     */
+    public boolean put(long packedCode, ResolvedUrl url) throws IOException {
+        byte[] longUrl = url.longUrl().getBytes(StandardCharsets.UTF_8);
+        if (RECORD_HEADER + (long) longUrl.length > BLOB_CHUNK) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            return putLocked(packedCode, url, longUrl);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Like {@link #put}, but gives up instead of waiting when the index is busy, e.g. growing. */
+    public boolean tryPut(long packedCode, ResolvedUrl url) throws IOException {
+        byte[] longUrl = url.longUrl().getBytes(StandardCharsets.UTF_8);
+        if (RECORD_HEADER + (long) longUrl.length > BLOB_CHUNK || !lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            return putLocked(packedCode, url, longUrl);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Grows or compacts the table so {@code additional} more codes fit. The new
+     * table is built while lookups continue and swapped in under the write lock.
+     * Returns false if the index would exceed {@link #MAX_CAPACITY}. Only one
+     * thread may call this at a time; the new table is staged in a single file.
+     */
+    public boolean ensureCapacity(int additional) throws IOException {
+        int newCapacity;
+        long seen;
+        Rehashed rehashed;
+        lock.readLock().lock();
+        try {
+            if (fits(size + tombstones, additional, capacity)) {
+                return true;
+            }
+            newCapacity = capacity;
+            // Mostly tombstones: dropping them may be enough
+            while (!fits(size, additional, newCapacity) && newCapacity <= MAX_CAPACITY) {
+                newCapacity *= 2;
+            }
+            if (newCapacity > MAX_CAPACITY) {
+                return false;
+            }
+            seen = modifications;
+            rehashed = rehash(newCapacity);
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (modifications != seen) {
+                // A write slipped in between the two locks; redo the copy with writes held off
+                rehashed.channel().close();
+                rehashed = rehash(newCapacity);
+            }
+            install(rehashed, newCapacity);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean putLocked(long packedCode, ResolvedUrl url, byte[] longUrl) throws IOException {
+        int slot = find(packedCode);
+        if (slot < 0) {
+            if (!fits(size + tombstones, 1, capacity)) {
+                return false;
+            }
+            slot = -slot - 1;
+        }
+        long offset = append(url, longUrl);
+        int at = slotOffset(slot);
+        long previousCode = table.getLong(at);
+        long previousOffset = table.getLong(at + 8);
+        table.putLong(at + 8, offset);
+        table.putLong(at, packedCode);
+        if (previousCode == 0) {
+            size++;
+        } else if (previousOffset == TOMBSTONE) {
+            tombstones--;
+            size++;
+        }
+        writeCounts();
+        return true;
+    }
+
+    /** Tombstones {@code packedCode} so lookups fall through until it is stored again. */
+    public void remove(long packedCode) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(packedCode);
+            if (slot < 0) {
+                return;
+            }
+            int at = slotOffset(slot);
+            if (table.getLong(at + 8) != TOMBSTONE) {
+                table.putLong(at + 8, TOMBSTONE);
+                size--;
+                tombstones++;
+                writeCounts();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Highest url id copied from the database by the incremental sync. */
+    public long urlWatermark() {
+        return readHeaderLong(H_URL_WATERMARK);
+    }
+
+    public void urlWatermark(long id) {
+        writeHeaderLong(H_URL_WATERMARK, id);
+    }
+
+    /** Database time up to which url changes have been applied, in epoch milliseconds. */
+    public long changeWatermark() {
+        return readHeaderLong(H_CHANGE_WATERMARK);
+    }
+
+    public void changeWatermark(long epochMillis) {
+        writeHeaderLong(H_CHANGE_WATERMARK, epochMillis);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long blobBytes() {
+        lock.readLock().lock();
+        try {
+            return blobEnd;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void force() {
+        lock.writeLock().lock();
+        try {
+            table.force();
+            for (MappedByteBuffer chunk : blobChunks) {
+                chunk.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (MappedByteBuffer chunk : blobChunks) {
+                chunk.force();
+            }
+            table.force();
+            table.putInt(H_CLEAN, 1);
+            table.force();
+            indexChannel.close();
+            blobChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the slot holding packedCode, or -(insertion slot) - 1 if it is absent
+    private int find(long packedCode) {
+        int mask = capacity - 1;
+        int slot = HashMaps.slot(packedCode, mask);
+        while (true) {
+            long code = table.getLong(slotOffset(slot));
+            if (code == packedCode) {
+                return slot;
+            }
+            if (code == 0) {
+                return -slot - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean fits(long used, long additional, int capacity) {
+        return (used + additional) * 4 <= (long) capacity * 3;
+    }
+
+    private record Rehashed(FileChannel channel, MappedByteBuffer table) {}
+
+    // Copies the live slots into a new table file next to the current one; needs at least the read lock
+    private Rehashed rehash(int newCapacity) throws IOException {
+        Path tmp = dir.resolve(INDEX_FILE + ".tmp");
+        writeTable(tmp, newCapacity, table.getLong(H_DATABASE_ID));
+        FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        int mask = newCapacity - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = slotOffset(slot);
+            long code = table.getLong(at);
+            long offset = table.getLong(at + 8);
+            if (code == 0 || offset == TOMBSTONE) {
+                continue;
+            }
+            int target = HashMaps.slot(code, mask);
+            while (next.getLong(slotOffset(target)) != 0) {
+                target = (target + 1) & mask;
+            }
+            next.putLong(slotOffset(target), code);
+            next.putLong(slotOffset(target) + 8, offset);
+        }
+        return new Rehashed(channel, next);
+    }
+
+    // Needs the write lock
+    private void install(Rehashed rehashed, int newCapacity) throws IOException {
+        MappedByteBuffer next = rehashed.table();
+        next.putInt(H_CLEAN, 0);
+        next.putInt(H_SIZE, size);
+        next.putInt(H_TOMBSTONES, 0);
+        next.putLong(H_BLOB_END, blobEnd);
+        next.putLong(H_URL_WATERMARK, table.getLong(H_URL_WATERMARK));
+        next.putLong(H_CHANGE_WATERMARK, table.getLong(H_CHANGE_WATERMARK));
+        next.force();
+        Files.move(dir.resolve(INDEX_FILE + ".tmp"), dir.resolve(INDEX_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        indexChannel.close();
+        indexChannel = rehashed.channel();
+        table = next;
+        capacity = newCapacity;
+        tombstones = 0;
+        modifications++;
+    }
+
+    private long append(ResolvedUrl url, byte[] longUrl) throws IOException {
+        int length = RECORD_HEADER + longUrl.length;
+        long offset = blobEnd;
+        if (offset % BLOB_CHUNK + length > BLOB_CHUNK) {
+            offset = (offset / BLOB_CHUNK + 1) * BLOB_CHUNK;
+        }
+        mapBlobThrough(offset + length);
+        MappedByteBuffer chunk = blobChunks.get((int) (offset / BLOB_CHUNK));
+        int at = (int) (offset % BLOB_CHUNK);
+        chunk.putLong(at, url.id());
+        chunk.putLong(at + 8, url.expiry() == null ? NO_EXPIRY : url.expiry().toEpochSecond(ZoneOffset.UTC));
+        chunk.put(at + 16, url.redirectPolicy() == null ? -1 : (byte) url.redirectPolicy().ordinal());
+        chunk.put(at + 17, url.clickAccounting() == null ? -1 : (byte) url.clickAccounting().ordinal());
+        chunk.putInt(at + 18, longUrl.length);
+        chunk.put(at + RECORD_HEADER, longUrl);
+        blobEnd = offset + length;
+        return offset;
+    }
+
+    private ResolvedUrl readRecord(long offset) {
+        MappedByteBuffer chunk = blobChunks.get((int) (offset / BLOB_CHUNK));
+        int at = (int) (offset % BLOB_CHUNK);
+        long expiry = chunk.getLong(at + 8);
+        byte policy = chunk.get(at + 16);
+        byte accounting = chunk.get(at + 17);
+        byte[] longUrl = new byte[chunk.getInt(at + 18)];
+        chunk.get(at + RECORD_HEADER, longUrl);
+        return new ResolvedUrl(
+                chunk.getLong(at),
+                new String(longUrl, StandardCharsets.UTF_8),
+                expiry == NO_EXPIRY ? null : LocalDateTime.ofEpochSecond(expiry, 0, ZoneOffset.UTC),
+                policy < 0 ? null : RedirectPolicy.values()[policy],
+                accounting < 0 ? null : ClickAccounting.values()[accounting]
+        );
+    }
+
+    private void mapBlobThrough(long end) throws IOException {
+        while ((long) blobChunks.size() * BLOB_CHUNK < end) {
+            blobChunks.add(blobChannel.map(FileChannel.MapMode.READ_WRITE, blobChunks.size() * BLOB_CHUNK, BLOB_CHUNK));
+        }
+    }
+
+    private void writeCounts() {
+        modifications++;
+        table.putInt(H_SIZE, size);
+        table.putInt(H_TOMBSTONES, tombstones);
+        table.putLong(H_BLOB_END, blobEnd);
+    }
+
+    private long readHeaderLong(int at) {
+        lock.readLock().lock();
+        try {
+            return table.getLong(at);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeHeaderLong(int at, long value) {
+        lock.writeLock().lock();
+        try {
+            modifications++;
+            table.putLong(at, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void writeTable(Path file, int capacity, long databaseId) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, VERSION);
+            header.putInt(H_FINGERPRINT, FINGERPRINT);
+            header.putInt(H_CLEAN, 1);
+            header.putInt(H_CAPACITY, capacity);
+            header.putLong(H_DATABASE_ID, databaseId);
+            header.force();
+        }
+    }
+
+    private static int capacityFor(long expectedEntries) {
+        long wanted = Math.max(MIN_CAPACITY, expectedEntries * 2);
+        if (wanted >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+}
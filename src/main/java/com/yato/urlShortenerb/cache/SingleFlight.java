@@ -0,0 +1,109 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.exception.DbBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one. The first caller runs
+ * the loader; callers arriving while it runs wait for its result, or its
+ * exception, for at most {@code maxWait}. The first caller to time out
+ * replaces the stuck load with its own, so one stuck load cannot hold every
+ * request for that key; the others wait up to {@code maxWait} more for the
+ * replacement and then fail with {@link DbBusyException} instead of piling
+ * more loads onto a slow database.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(Duration maxWait) {
+        if (maxWait.isNegative() || maxWait.isZero()) {
+            throw new IllegalArgumentException("maxWait must be positive");
+        }
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running == null) {
+            return lead(key, mine, loader);
+        }
+
+        try {
+            return await(key, running);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+        }
+        if (inFlight.replace(key, running, mine)) {
+            return lead(key, mine, loader);
+        }
+
+        // Another waiter took over, or the stuck load finished meanwhile
+        try {
+            if (running.isDone()) {
+                return await(key, running);
+            }
+            CompletableFuture<V> replacement = inFlight.get(key);
+            if (replacement == null) {
+                return load(key, loader);
+            }
+            return await(key, replacement);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new DbBusyException("Load of " + key + " is taking longer than allowed");
+        }
+    }
+
+    private V await(K key, CompletableFuture<V> running) throws TimeoutException {
+        try {
+            V value = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the in-flight load of " + key);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader) {
+        loads.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public SingleFlightStats stats() {
+        return new SingleFlightStats(loads.sum(), coalesced.sum(), timeouts.sum(), inFlight.size());
+    }
+}
@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.cache;
+
+public record SingleFlightStats(
+        long loads,
+        long coalesced,
+        long timeouts,
+        int inFlight
+) {}
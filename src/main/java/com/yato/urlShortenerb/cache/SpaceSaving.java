@@ -0,0 +1,135 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.dto.NameCount;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters: tracks at most {@code capacity} items, and an
+ * unseen item replaces the one with the lowest count, inheriting that count
+ * as its error. Any item more frequent than {@code total / capacity} is
+ * guaranteed to be tracked, and no count is ever underestimated. Merging
+ * follows Agarwal et al.: an item missing from a full summary is credited
+ * with that summary's minimum before the largest {@code capacity} are kept.
+ * Not thread-safe.
+ */
+public class SpaceSaving {
+
+    private static final byte VERSION = 1;
+
+    private final int capacity;
+    // item -> {count, error}
+    private final Map<String, long[]> counters;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String item, long count) {
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new long[] {count, 0});
+            return;
+        }
+        // A linear scan is cheaper than keeping buckets in order at the capacities used here
+        Map.Entry<String, long[]> min = null;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (min == null || entry.getValue()[0] < min.getValue()[0]) {
+                min = entry;
+            }
+        }
+        long floor = min.getValue()[0];
+        counters.remove(min.getKey());
+        counters.put(item, new long[] {floor + count, floor});
+    }
+
+    public void merge(SpaceSaving other) {
+        long ourFloor = floor();
+        long theirFloor = other.floor();
+        Map<String, long[]> merged = new HashMap<>(counters.size() + other.counters.size());
+        counters.forEach((item, c) -> {
+            long[] theirs = other.counters.get(item);
+            merged.put(item, theirs == null
+                    ? new long[] {c[0] + theirFloor, c[1] + theirFloor}
+                    : new long[] {c[0] + theirs[0], c[1] + theirs[1]});
+        });
+        other.counters.forEach((item, c) -> {
+            if (!counters.containsKey(item)) {
+                merged.put(item, new long[] {c[0] + ourFloor, c[1] + ourFloor});
+            }
+        });
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), e.getValue()));
+    }
+
+    /** The {@code k} items with the highest estimated counts, highest first. */
+    public List<NameCount> top(int k) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(k)
+                .map(e -> new NameCount(e.getKey(), e.getValue()[0]))
+                .toList();
+    }
+
+    public byte[] toBytes() {
+        List<Map.Entry<byte[], long[]>> entries = new ArrayList<>(counters.size());
+        int size = 1 + 4 + 4;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            entries.add(Map.entry(bytes, entry.getValue()));
+            size += 2 + bytes.length + 16;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).put(VERSION).putInt(capacity).putInt(entries.size());
+        for (Map.Entry<byte[], long[]> entry : entries) {
+            buffer.putShort((short) entry.getKey().length).put(entry.getKey())
+                    .putLong(entry.getValue()[0]).putLong(entry.getValue()[1]);
+        }
+        return buffer.array();
+    }
+
+    public static SpaceSaving fromBytes(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown Space-Saving version " + version);
+        }
+        SpaceSaving summary = new SpaceSaving(buffer.getInt());
+        int size = buffer.getInt();
+        if (size < 0 || size > summary.capacity) {
+            throw new IllegalArgumentException("Corrupt Space-Saving summary of " + size + " items");
+        }
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xffff];
+            buffer.get(bytes);
+            summary.counters.put(new String(bytes, StandardCharsets.UTF_8), new long[] {buffer.getLong(), buffer.getLong()});
+        }
+        return summary;
+    }
+
+    private long floor() {
+        if (counters.size() < capacity) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return min;
+    }
+}
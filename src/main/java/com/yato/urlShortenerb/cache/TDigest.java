@@ -0,0 +1,197 @@
+package com.yato.urlShortenerb.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest for quantiles of a stream of doubles. Values collect in a
+ * buffer and are folded into centroids whose size is bounded by the
+ * arcsine scale function, so the tails stay precise while the middle is
+ * summarised coarsely. Roughly {@code compression} centroids are kept
+ * whatever the number of values, and merging two digests folds one's
+ * centroids into the other. Not thread-safe.
+ */
+public class TDigest {
+
+    private static final byte VERSION = 1;
+
+    private final double compression;
+    private double[] means;
+    private long[] weights;
+    private int centroids;
+    private final int bufferLimit;
+    // Grows up to bufferLimit, so digests that see a handful of values stay small
+    private double[] buffer = new double[8];
+    private int buffered;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("compression must be at least 10");
+        }
+        this.compression = compression;
+        this.means = new double[0];
+        this.weights = new long[0];
+        this.bufferLimit = (int) compression * 5;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN");
+        }
+        if (buffered == buffer.length) {
+            if (buffer.length < bufferLimit) {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, bufferLimit));
+            } else {
+                compress();
+            }
+        }
+        buffer[buffered++] = value;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        if (other.count == 0) {
+            return;
+        }
+        compress();
+        merge(other.means, other.weights, other.centroids);
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Estimated value below which a fraction {@code q} of the values fall, or NaN when empty. */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q must be between 0 and 1");
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double target = q * count;
+        double cumulative = 0;
+        for (int i = 0; i < centroids; i++) {
+            double half = weights[i] / 2.0;
+            if (target < cumulative + half) {
+                if (i == 0) {
+                    return interpolate(min, means[0], target / half);
+                }
+                double previousCenter = cumulative - weights[i - 1] / 2.0;
+                return interpolate(means[i - 1], means[i], (target - previousCenter) / (cumulative + half - previousCenter));
+            }
+            cumulative += weights[i];
+        }
+        double lastHalf = weights[centroids - 1] / 2.0;
+        return interpolate(means[centroids - 1], max, (target - (count - lastHalf)) / lastHalf);
+    }
+
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer out = ByteBuffer.allocate(1 + 8 + 8 + 8 + 8 + 4 + centroids * 16)
+                .put(VERSION).putDouble(compression).putLong(count).putDouble(min).putDouble(max).putInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.putDouble(means[i]).putLong(weights[i]);
+        }
+        return out.array();
+    }
+
+    public static TDigest fromBytes(ByteBuffer in) {
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown t-digest version " + version);
+        }
+        TDigest digest = new TDigest(in.getDouble());
+        digest.count = in.getLong();
+        digest.min = in.getDouble();
+        digest.max = in.getDouble();
+        int centroids = in.getInt();
+        if (centroids < 0 || centroids > in.remaining() / 16) {
+            throw new IllegalArgumentException("Corrupt t-digest of " + centroids + " centroids");
+        }
+        digest.means = new double[centroids];
+        digest.weights = new long[centroids];
+        for (int i = 0; i < centroids; i++) {
+            digest.means[i] = in.getDouble();
+            digest.weights[i] = in.getLong();
+        }
+        digest.centroids = centroids;
+        return digest;
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        double[] values = Arrays.copyOf(buffer, buffered);
+        long[] ones = new long[buffered];
+        Arrays.fill(ones, 1);
+        buffered = 0;
+        merge(values, ones, values.length);
+    }
+
+    // Sorts the incoming centroids in with the current ones and folds neighbours while the scale allows
+    private void merge(double[] incomingMeans, long[] incomingWeights, int incoming) {
+        int total = centroids + incoming;
+        Integer[] order = new Integer[total];
+        double[] allMeans = new double[total];
+        long[] allWeights = new long[total];
+        System.arraycopy(means, 0, allMeans, 0, centroids);
+        System.arraycopy(weights, 0, allWeights, 0, centroids);
+        System.arraycopy(incomingMeans, 0, allMeans, centroids, incoming);
+        System.arraycopy(incomingWeights, 0, allWeights, centroids, incoming);
+        long totalWeight = 0;
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+            totalWeight += allWeights[i];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] newMeans = new double[total];
+        long[] newWeights = new long[total];
+        int n = 0;
+        newMeans[0] = allMeans[order[0]];
+        newWeights[0] = allWeights[order[0]];
+        long before = 0;
+        double kLeft = scale(0);
+        for (int i = 1; i < total; i++) {
+            int next = order[i];
+            double qRight = (double) (before + newWeights[n] + allWeights[next]) / totalWeight;
+            if (scale(qRight) - kLeft <= 1) {
+                long merged = newWeights[n] + allWeights[next];
+                newMeans[n] += (allMeans[next] - newMeans[n]) * allWeights[next] / merged;
+                newWeights[n] = merged;
+            } else {
+                before += newWeights[n];
+                kLeft = scale((double) before / totalWeight);
+                n++;
+                newMeans[n] = allMeans[next];
+                newWeights[n] = allWeights[next];
+            }
+        }
+        centroids = n + 1;
+        means = Arrays.copyOf(newMeans, centroids);
+        weights = Arrays.copyOf(newWeights, centroids);
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private static double interpolate(double from, double to, double fraction) {
+        return from + (to - from) * Math.max(0, Math.min(1, fraction));
+    }
+}
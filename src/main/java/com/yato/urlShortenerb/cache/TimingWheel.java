@@ -0,0 +1,177 @@
+package com.yato.urlShortenerb.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel. A slot on level {@code l} spans
+ * {@code wheelSize^l} ticks; a key is placed on the lowest level whose
+ * parent window it shares with the current tick and is cascaded down when
+ * time reaches its slot. Deadlines beyond the top level wait in an
+ * overflow bucket that is redistributed once per top-level revolution.
+ * Scheduling and cancelling are O(1); each key is touched at most once
+ * per level before it fires. Keys are longs held in primitive maps, so a
+ * scheduled key costs no objects.
+ */
+public class TimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] spans;
+    // key -> deadline tick per bucket; bucket ids are level * wheelSize + slot, the last one is the overflow
+    private final LongLongHashMap[] buckets;
+    private final int overflow;
+    private final LongIntHashMap index = new LongIntHashMap(1024, -1);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long currentTick;
+
+    public TimingWheel(Duration tick, int wheelSize, int levels, long nowMillis) {
+        if (tick.toMillis() <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("tick, wheelSize and levels must be positive");
+        }
+        if (levels * (64 - Long.numberOfLeadingZeros(wheelSize - 1)) > 62) {
+            throw new IllegalArgumentException("wheelSize^levels does not fit in a long");
+        }
+        this.tickMillis = tick.toMillis();
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.spans = new long[levels + 1];
+        spans[0] = 1;
+        for (int l = 1; l <= levels; l++) {
+            spans[l] = spans[l - 1] * wheelSize;
+        }
+        this.overflow = levels * wheelSize;
+        this.buckets = new LongLongHashMap[overflow + 1];
+        for (int b = 0; b <= overflow; b++) {
+            buckets[b] = new LongLongHashMap(16, 0);
+        }
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Schedules (or reschedules) {@code key} to fire at {@code deadlineMillis}.
+     * Returns false without scheduling if the deadline has already passed.
+     */
+    public boolean schedule(long key, long deadlineMillis) {
+        long deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        lock.lock();
+        try {
+            remove(key);
+            return place(key, deadlineTick);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(long key) {
+        lock.lock();
+        try {
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Moves the wheel to {@code nowMillis} and returns every key whose deadline was reached. */
+    public long[] advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        Expired expired = new Expired();
+        lock.lock();
+        try {
+            if (index.isEmpty()) {
+                currentTick = Math.max(currentTick, targetTick);
+                return expired.toArray();
+            }
+            while (currentTick < targetTick) {
+                currentTick++;
+                if (currentTick % spans[levels] == 0) {
+                    cascade(overflow, expired);
+                }
+                for (int l = levels - 1; l >= 1; l--) {
+                    if (currentTick % spans[l] == 0) {
+                        cascade(bucketOf(currentTick, l), expired);
+                    }
+                }
+                LongLongHashMap due = buckets[bucketOf(currentTick, 0)];
+                due.forEach((key, deadline) -> {
+                    index.remove(key);
+                    expired.add(key);
+                });
+                due.clear();
+            }
+            return expired.toArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean place(long key, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        int bucket = overflow;
+        for (int l = 0; l < levels; l++) {
+            if (deadlineTick / spans[l + 1] == currentTick / spans[l + 1]) {
+                bucket = bucketOf(deadlineTick, l);
+                break;
+            }
+        }
+        buckets[bucket].put(key, deadlineTick);
+        index.put(key, bucket);
+        return true;
+    }
+
+    private void cascade(int bucket, Expired expired) {
+        LongLongHashMap entries = buckets[bucket];
+        if (entries.isEmpty()) {
+            return;
+        }
+        // Re-placing can land in this same bucket again one revolution later, so drain a copy
+        buckets[bucket] = new LongLongHashMap(16, 0);
+        entries.forEach((key, deadlineTick) -> {
+            index.remove(key);
+            if (!place(key, deadlineTick)) {
+                expired.add(key);
+            }
+        });
+    }
+
+    private void remove(long key) {
+        int bucket = index.remove(key);
+        if (bucket >= 0) {
+            buckets[bucket].remove(key);
+        }
+    }
+
+    private int bucketOf(long tick, int level) {
+        return level * wheelSize + (int) ((tick / spans[level]) % wheelSize);
+    }
+
+    private static final class Expired {
+        private long[] keys = new long[16];
+        private int size;
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(keys, size);
+        }
+    }
+}
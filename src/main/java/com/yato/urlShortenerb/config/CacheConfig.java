@@ -0,0 +1,74 @@
+package com.yato.urlShortenerb.config;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.SingleFlight;
+import com.yato.urlShortenerb.dto.AnalyticsOverview;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+import com.yato.urlShortenerb.dto.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public BoundedTtlCache<String, ResolvedUrl> shortCodeCache(
+            @Value("${app.cache.short-code.max-size:100000}") int maxSize,
+            @Value("${app.cache.short-code.ttl:10m}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, VerifiedToken> tokenCache(
+            @Value("${app.cache.token.max-size:10000}") int maxSize,
+            @Value("${app.cache.token.ttl:15m}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, UserDetails> principalCache(
+            @Value("${app.cache.principal.max-size:10000}") int maxSize,
+            @Value("${app.cache.principal.ttl:30s}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, Integer> userAgentIdCache(
+            @Value("${app.cache.event-dictionary.max-size:50000}") int maxSize,
+            @Value("${app.cache.event-dictionary.ttl:1h}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, Integer> referrerIdCache(
+            @Value("${app.cache.event-dictionary.max-size:50000}") int maxSize,
+            @Value("${app.cache.event-dictionary.ttl:1h}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, UserAgentInfo> userAgentCache(
+            @Value("${app.cache.user-agent.max-size:10000}") int maxSize,
+            @Value("${app.cache.user-agent.ttl:24h}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedTtlCache<String, AnalyticsOverview> analyticsCache(
+            @Value("${app.cache.analytics.max-size:10000}") int maxSize,
+            @Value("${app.cache.analytics.ttl:30s}") Duration ttl) {
+        return new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    @Bean
+    public SingleFlight<String, Optional<ResolvedUrl>> shortCodeLoads(
+            @Value("${app.cache.single-flight.max-wait:500ms}") Duration maxWait) {
+        return new SingleFlight<>(maxWait);
+    }
+}
@@ -0,0 +1,61 @@
+package com.yato.urlShortenerb.config;
+
+import com.yato.urlShortenerb.exception.DbBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent blocking DB work from request threads at the connection
+ * pool's size. With virtual threads there is no Tomcat pool to bound
+ * concurrency, so without this every request would queue inside Hikari for
+ * its full connection timeout instead of failing fast.
+ */
+@Slf4j
+@Component
+public class DbConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    public DbConcurrencyLimiter(
+            @Value("${app.db.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.db.acquire-timeout:2s}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbBusyException("Interrupted while waiting for a database slot");
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new DbBusyException("Database busy");
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
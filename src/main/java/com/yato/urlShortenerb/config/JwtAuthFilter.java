@@ -1,11 +1,12 @@
 package com.yato.urlShortenerb.config;
 
 import com.yato.urlShortenerb.service.impl.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,14 +15,30 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JWTUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+
+    public JwtAuthFilter(JWTUtils jwtUtils, UserDetailsServiceImpl userDetailsService, MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.validTimer = verifyTimer(meterRegistry, "valid");
+        this.invalidTimer = verifyTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("urlshortener.jwt.verify")
+                .description("Bearer token verification including the principal lookup")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
     @Override
     protected void doFilterInternal(
@@ -35,9 +52,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
 
-            if (jwtUtils.validateToken(token)) {
-                String email = jwtUtils.getEmailFromToken(token);
+            long start = System.nanoTime();
+            String email = jwtUtils.verify(token).orElse(null);
+
+            if (email != null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                validTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
                 UsernamePasswordAuthenticationToken auth =
                         new UsernamePasswordAuthenticationToken(
@@ -48,6 +68,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } else {
+                invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 SecurityContextHolder.clearContext(); // 🔴 important
                 log.debug("Invalid or expired JWT token");
             }
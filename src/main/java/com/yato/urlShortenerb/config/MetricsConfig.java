@@ -0,0 +1,182 @@
+package com.yato.urlShortenerb.config;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.SingleFlight;
+import com.yato.urlShortenerb.service.ClickRecorder;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import com.yato.urlShortenerb.service.impl.AnalyticsStreamHub;
+import com.yato.urlShortenerb.service.impl.ClickSketchAggregator;
+import com.yato.urlShortenerb.service.impl.EventLogClickRecorder;
+import com.yato.urlShortenerb.service.impl.ExpiryEvictionScheduler;
+import com.yato.urlShortenerb.service.impl.SharedCacheTier;
+import com.yato.urlShortenerb.service.impl.ShortCodeIndexer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Publishes the counters behind /stats as meters so they are scraped with
+ * everything else. Every BoundedTtlCache bean is bound under its bean name.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(Map<String, BoundedTtlCache<?, ?>> caches) {
+        return registry -> caches.forEach((name, cache) -> {
+            FunctionCounter.builder("cache.gets", cache, c -> c.stats().hits())
+                    .tag("cache", name).tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", cache, c -> c.stats().misses())
+                    .tag("cache", name).tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", cache, c -> c.stats().evictions())
+                    .tag("cache", name)
+                    .register(registry);
+            Gauge.builder("cache.size", cache, BoundedTtlCache::size)
+                    .tag("cache", name)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder singleFlightMetrics(Map<String, SingleFlight<?, ?>> flights) {
+        return registry -> flights.forEach((name, flight) -> {
+            FunctionCounter.builder("urlshortener.singleflight.loads", flight, f -> f.stats().loads())
+                    .description("Loads that actually ran, including ones started after a timed-out wait")
+                    .tag("flight", name)
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.singleflight.coalesced", flight, f -> f.stats().coalesced())
+                    .description("Callers served by another caller's in-flight load")
+                    .tag("flight", name)
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.singleflight.timeouts", flight, f -> f.stats().timeouts())
+                    .tag("flight", name)
+                    .register(registry);
+            Gauge.builder("urlshortener.singleflight.inflight", flight, f -> f.stats().inFlight())
+                    .tag("flight", name)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder sharedCacheMetrics(SharedCacheTier sharedCache) {
+        return registry -> {
+            if (!sharedCache.enabled()) {
+                return;
+            }
+            FunctionCounter.builder("cache.gets", sharedCache, c -> c.stats().hits())
+                    .tag("cache", "shared").tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", sharedCache, c -> c.stats().misses())
+                    .tag("cache", "shared").tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.cache.shared.errors", sharedCache, c -> c.stats().errors())
+                    .description("Shared cache calls that failed and fell back to the local tier")
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.cache.shared.messages", sharedCache, c -> c.stats().messagesReceived())
+                    .description("Invalidations and filter additions received from other replicas")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder shortCodeIndexMetrics(ShortCodeIndexer shortCodeIndex) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", shortCodeIndex, ShortCodeIndexer::hits)
+                    .tag("cache", "shortCodeIndex").tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", shortCodeIndex, ShortCodeIndexer::misses)
+                    .tag("cache", "shortCodeIndex").tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("cache.size", shortCodeIndex, ShortCodeIndexer::size)
+                    .tag("cache", "shortCodeIndex")
+                    .register(registry);
+            Gauge.builder("urlshortener.index.blob.bytes", shortCodeIndex, ShortCodeIndexer::blobBytes)
+                    .description("Bytes appended to the index's url blob, including superseded records")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder clickRecorderMetrics(ClickRecorder clickRecorder,
+                                            ObjectProvider<EventLogClickRecorder> eventLog) {
+        return registry -> {
+            FunctionCounter.builder("urlshortener.clicks.enqueued", clickRecorder, r -> r.stats().enqueued())
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.clicks.dropped", clickRecorder, r -> r.stats().dropped())
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.clicks.written", clickRecorder, r -> r.stats().written())
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.clicks.failed", clickRecorder, r -> r.stats().failed())
+                    .register(registry);
+            Gauge.builder("urlshortener.clicks.queued", clickRecorder, r -> r.stats().queued())
+                    .register(registry);
+            eventLog.ifAvailable(recorder ->
+                    Gauge.builder("urlshortener.clicks.log.bytes", recorder, EventLogClickRecorder::logBytes)
+                            .description("Clicks on local disk waiting to be shipped to the database")
+                            .register(registry));
+        };
+    }
+
+    @Bean
+    public MeterBinder analyticsStreamMetrics(AnalyticsStreamHub analyticsStream) {
+        return registry -> Gauge.builder("urlshortener.analytics.stream.subscribers", analyticsStream, AnalyticsStreamHub::subscriberCount)
+                .description("Open server-sent analytics streams on this node")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder clickSketchMetrics(ClickSketchAggregator sketches) {
+        return registry -> {
+            Gauge.builder("urlshortener.analytics.sketch.pending", sketches, ClickSketchAggregator::pendingUrls)
+                    .description("Urls with clicks not yet merged into the stored sketches")
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.analytics.sketch.dropped", sketches, ClickSketchAggregator::dropped)
+                    .description("Clicks left out of sketches because too many urls were pending")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder shortCodeFilterMetrics(ShortCodeFilter shortCodeFilter) {
+        return registry -> {
+            FunctionCounter.builder("urlshortener.bloom.rejected", shortCodeFilter, f -> f.stats().rejected())
+                    .description("Lookups answered without a query")
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.bloom.false.positives", shortCodeFilter, f -> f.stats().falsePositives())
+                    .register(registry);
+            Gauge.builder("urlshortener.bloom.insertions", shortCodeFilter, f -> f.stats().insertions())
+                    .register(registry);
+            Gauge.builder("urlshortener.bloom.expected.fpp", shortCodeFilter, f -> f.stats().expectedFalsePositiveRate())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder expiryMetrics(ExpiryEvictionScheduler expiryScheduler) {
+        return registry -> Gauge.builder("urlshortener.expiry.scheduled", expiryScheduler, ExpiryEvictionScheduler::pending)
+                .description("Cached short codes waiting on the timing wheel for their expiry")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder dbLimiterMetrics(DbConcurrencyLimiter dbLimiter,
+                                        ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        return registry -> {
+            Gauge.builder("urlshortener.db.permits.available", dbLimiter, DbConcurrencyLimiter::available)
+                    .register(registry);
+            FunctionCounter.builder("urlshortener.db.rejected", dbLimiter, DbConcurrencyLimiter::rejected)
+                    .description("Requests answered 503 because no database slot freed up in time")
+                    .register(registry);
+            pinningMonitor.ifAvailable(monitor ->
+                    FunctionCounter.builder("urlshortener.virtual.threads.pinned", monitor, VirtualThreadPinningMonitor::pinnedEvents)
+                            .register(registry));
+        };
+    }
+}
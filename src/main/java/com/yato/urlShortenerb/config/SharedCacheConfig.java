@@ -0,0 +1,43 @@
+package com.yato.urlShortenerb.config;
+
+import com.yato.urlShortenerb.cache.InMemorySharedCache;
+import com.yato.urlShortenerb.cache.RedisSharedCache;
+import com.yato.urlShortenerb.cache.SharedCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Second-level cache shared between replicas, selected by app.cache.l2.mode.
+ * With the default {@code none} no SharedCache bean exists and every node
+ * only uses its in-process caches.
+ */
+@Configuration
+public class SharedCacheConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.cache.l2.mode", havingValue = "redis")
+    static class Redis {
+
+        @Bean
+        public RedisMessageListenerContainer sharedCacheListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        @Bean
+        public SharedCache sharedCache(StringRedisTemplate redis, RedisMessageListenerContainer sharedCacheListenerContainer) {
+            return new RedisSharedCache(redis, sharedCacheListenerContainer);
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.l2.mode", havingValue = "local")
+    public SharedCache localSharedCache() {
+        return new InMemorySharedCache();
+    }
+}
@@ -3,13 +3,17 @@ package com.yato.urlShortenerb.controller;
 import com.yato.urlShortenerb.service.AnalyticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+
 @RestController
 @Slf4j
 @RequestMapping("/analytics")
@@ -30,8 +34,38 @@ public class AnalyticsController {
 
         String email = auth.getName();
 
-        log.info("Fetching analytics for {}", email);
+        log.debug("Fetching analytics for {}", email);
 
         return analyticsService.getAnalytics(email);
     }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamAnalytics() throws IOException {
+
+        Authentication auth =
+                SecurityContextHolder.getContext().getAuthentication();
+
+        if (auth == null || !auth.isAuthenticated()) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        log.debug("Streaming analytics for {}", auth.getName());
+
+        return analyticsService.streamAnalytics(auth.getName());
+    }
+
+    @GetMapping("/urls/{id}")
+    public ResponseEntity<?> getUrlAudience(@PathVariable Long id) {
+
+        Authentication auth =
+                SecurityContextHolder.getContext().getAuthentication();
+
+        if (auth == null || !auth.isAuthenticated()) {
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        log.debug("Fetching audience of url {} for {}", id, auth.getName());
+
+        return analyticsService.getUrlAudience(id, auth.getName());
+    }
 }
@@ -0,0 +1,40 @@
+package com.yato.urlShortenerb.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Access log for GET /s/{code}. Successful redirects are sampled 1-in-N,
+ * errors are always written. Nothing is formatted or boxed for requests
+ * that are not logged.
+ */
+@Component
+public class RedirectAccessLog {
+
+    private static final Logger ACCESS = LoggerFactory.getLogger("access.redirect");
+
+    private final int sampleRate;
+
+    public RedirectAccessLog(@Value("${app.logging.redirect-sample-rate:100}") int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public void sampled(String shortCode, int status, long elapsedNanos) {
+        if (sampleRate <= 0 || !ACCESS.isInfoEnabled()) {
+            return;
+        }
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            ACCESS.info("{} /s/{} {}us sample=1/{}", status, shortCode, elapsedNanos / 1000, sampleRate);
+        }
+    }
+
+    public void error(String shortCode, int status, long elapsedNanos) {
+        if (ACCESS.isWarnEnabled()) {
+            ACCESS.warn("{} /s/{} {}us", status, shortCode, elapsedNanos / 1000);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.yato.urlShortenerb.controller;
+
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Builds the redirect response for a link's policy. Cache lifetimes never
+ * outlast the link's expiry, so a cached redirect cannot outlive the link.
+ */
+@Component
+public class RedirectCacheControl {
+
+    private final RedirectPolicy defaultPolicy;
+    private final ClickAccounting defaultAccounting;
+    private final long maxAgeSeconds;
+    private final long cdnMaxAgeSeconds;
+    private final long staleWhileRevalidateSeconds;
+
+    public RedirectCacheControl(
+            @Value("${app.redirect.default-policy:TEMPORARY}") RedirectPolicy defaultPolicy,
+            @Value("${app.redirect.default-click-accounting:REDIRECT}") ClickAccounting defaultAccounting,
+            @Value("${app.redirect.max-age:1d}") Duration maxAge,
+            @Value("${app.redirect.cdn-max-age:60s}") Duration cdnMaxAge,
+            @Value("${app.redirect.stale-while-revalidate:60s}") Duration staleWhileRevalidate) {
+        this.defaultPolicy = defaultPolicy;
+        this.defaultAccounting = defaultAccounting;
+        this.maxAgeSeconds = maxAge.toSeconds();
+        this.cdnMaxAgeSeconds = cdnMaxAge.toSeconds();
+        this.staleWhileRevalidateSeconds = staleWhileRevalidate.toSeconds();
+    }
+
+    public ClickAccounting accountingOf(ResolvedUrl url) {
+        return url.clickAccounting() != null ? url.clickAccounting() : defaultAccounting;
+    }
+
+    public ResponseEntity<Void> redirect(ResolvedUrl url, LocalDateTime now) {
+        RedirectPolicy policy = url.redirectPolicy() != null ? url.redirectPolicy() : defaultPolicy;
+        return ResponseEntity.status(policy.status())
+                .header(HttpHeaders.LOCATION, url.longUrl())
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl(policy, url, now))
+                .build();
+    }
+
+    private String cacheControl(RedirectPolicy policy, ResolvedUrl url, LocalDateTime now) {
+        long remaining = url.expiry() == null ? Long.MAX_VALUE : Duration.between(now, url.expiry()).toSeconds();
+        return switch (policy) {
+            case TEMPORARY -> "private, no-store";
+            case CDN -> "public, max-age=0, s-maxage=" + Math.min(cdnMaxAgeSeconds, remaining)
+                    + staleWhileRevalidate(remaining);
+            case MOVED_PERMANENTLY, PERMANENT_REDIRECT -> "public, max-age=" + Math.min(maxAgeSeconds, remaining)
+                    + staleWhileRevalidate(remaining);
+        };
+    }
+
+    private String staleWhileRevalidate(long remaining) {
+        // Serving stale past the expiry would resurrect a dead link
+        return remaining == Long.MAX_VALUE ? ", stale-while-revalidate=" + staleWhileRevalidateSeconds : "";
+    }
+}
@@ -1,58 +1,153 @@
 package com.yato.urlShortenerb.controller;
 
-import com.yato.urlShortenerb.entity.AnalyticsEvent;
-import com.yato.urlShortenerb.entity.Url;
-import com.yato.urlShortenerb.repo.AnalyticsEventRepo;
-import com.yato.urlShortenerb.repo.UrlRepo;
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.service.ClickCounterStore;
+import com.yato.urlShortenerb.service.ClickRecorder;
+import com.yato.urlShortenerb.service.ShortCodeResolver;
+import com.yato.urlShortenerb.service.UserAgentClassifier;
+import com.yato.urlShortenerb.service.impl.AnalyticsStreamHub;
+import com.yato.urlShortenerb.service.impl.VisitorSalt;
+import com.yato.urlShortenerb.util.VisitorHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
-@Slf4j
 @RestController
-@RequiredArgsConstructor
 public class RedirectController {
 
-    private final UrlRepo urlRepo;
-    private final AnalyticsEventRepo analyticsRepo;
+    private final ShortCodeResolver shortCodeResolver;
+    private final ClickCounterStore clickCounterStore;
+    private final ClickRecorder clickRecorder;
+    private final UserAgentClassifier userAgentClassifier;
+    private final AnalyticsStreamHub analyticsStream;
+    private final RedirectCacheControl cacheControl;
+    private final RedirectAccessLog accessLog;
+    private final MeterRegistry meterRegistry;
+    private final String visitorSalt;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Timer expiredTimer;
+
+    public RedirectController(ShortCodeResolver shortCodeResolver,
+                              ClickCounterStore clickCounterStore,
+                              ClickRecorder clickRecorder,
+                              UserAgentClassifier userAgentClassifier,
+                              AnalyticsStreamHub analyticsStream,
+                              RedirectCacheControl cacheControl,
+                              RedirectAccessLog accessLog,
+                              MeterRegistry meterRegistry,
+                              VisitorSalt visitorSalt) {
+        this.shortCodeResolver = shortCodeResolver;
+        this.clickCounterStore = clickCounterStore;
+        this.clickRecorder = clickRecorder;
+        this.userAgentClassifier = userAgentClassifier;
+        this.analyticsStream = analyticsStream;
+        this.cacheControl = cacheControl;
+        this.accessLog = accessLog;
+        this.meterRegistry = meterRegistry;
+        this.visitorSalt = visitorSalt.value();
+        this.hitTimer = redirectTimer("hit");
+        this.missTimer = redirectTimer("miss");
+        this.expiredTimer = redirectTimer("expired");
+    }
+
+    private Timer redirectTimer(String outcome) {
+        return Timer.builder("urlshortener.redirect")
+                .description("Short code resolution and redirect")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
     @Operation(summary = "Redirect short code to original URL")
     @GetMapping("/s/{shortCode}")
     public ResponseEntity<?> redirect(@PathVariable String shortCode,
                                       HttpServletRequest request) {
 
-        log.info("Redirect request for {}", shortCode);
+        long start = System.nanoTime();
 
-        Url url = urlRepo.findByShortCode(shortCode).orElse(null);
+        ResolvedUrl url = shortCodeResolver.resolve(shortCode).orElse(null);
 
         if (url == null) {
-            log.warn("Invalid short code {}", shortCode);
+            long elapsed = System.nanoTime() - start;
+            missTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            accessLog.error(shortCode, 400, elapsed);
             return ResponseEntity.badRequest().body("Invalid short URL");
         }
 
-        // Increment click count
-        url.setClickCount(url.getClickCount() + 1);
-        urlRepo.save(url);
+        // Expiry comes with the cached lookup, so enforcing it costs no query
+        LocalDateTime now = LocalDateTime.now();
+        if (url.expiry() != null && url.expiry().isBefore(now)) {
+            long elapsed = System.nanoTime() - start;
+            expiredTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            accessLog.error(shortCode, 410, elapsed);
+            return ResponseEntity.status(410).body("Short URL has expired");
+        }
+
+        if (cacheControl.accountingOf(url) == ClickAccounting.REDIRECT) {
+            recordClick(url, request, now);
+        }
+
+        ResponseEntity<Void> response = cacheControl.redirect(url, now);
 
-        // 🔥 Record analytics event BEFORE redirect
-        AnalyticsEvent event = new AnalyticsEvent();
-        event.setDevice(request.getHeader("User-Agent"));
-        event.setReferrer(request.getHeader("Referer"));
-        event.setTimestamp(LocalDateTime.now());
-        event.setUrl(url);
+        long elapsed = System.nanoTime() - start;
+        hitTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        accessLog.sampled(shortCode, response.getStatusCode().value(), elapsed);
+
+        return response;
+    }
 
-        analyticsRepo.save(event);
+    @Operation(summary = "Count a click for a link whose redirect may be served from a browser or CDN cache")
+    @PostMapping("/s/{shortCode}/beacon")
+    public ResponseEntity<?> beacon(@PathVariable String shortCode,
+                                    HttpServletRequest request) {
 
-        // Redirect user
-        return ResponseEntity.status(302)
-                .header("Location", url.getLongUrl())
+        ResolvedUrl url = shortCodeResolver.resolve(shortCode).orElse(null);
+        if (url == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (url.expiry() != null && url.expiry().isBefore(now)) {
+            return ResponseEntity.status(410).build();
+        }
+
+        // Links counted on redirect ignore beacons, otherwise clicks would be counted twice
+        if (cacheControl.accountingOf(url) == ClickAccounting.BEACON) {
+            recordClick(url, request, now);
+        }
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
                 .build();
     }
+
+    // Click count and analytics event are persisted off the request thread
+    private void recordClick(ResolvedUrl url, HttpServletRequest request, LocalDateTime now) {
+        String userAgent = request.getHeader("User-Agent");
+        UserAgentInfo agent = userAgentClassifier.classify(userAgent);
+        if (userAgentClassifier.isCounted(agent)) {
+            clickCounterStore.increment(url.id());
+            analyticsStream.recordClick(url.id(), now, agent.device());
+        }
+        clickRecorder.record(new ClickEvent(
+                url.id(),
+                userAgent,
+                agent,
+                request.getHeader("Referer"),
+                now,
+                VisitorHash.of(visitorSalt, request.getRemoteAddr(), userAgent)
+        ));
+    }
 }
@@ -0,0 +1,53 @@
+package com.yato.urlShortenerb.controller;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.CacheStats;
+import com.yato.urlShortenerb.dto.BloomFilterStats;
+import com.yato.urlShortenerb.dto.ClickRecorderStats;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.dto.VerifiedToken;
+import com.yato.urlShortenerb.service.ClickRecorder;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final BoundedTtlCache<String, ResolvedUrl> shortCodeCache;
+    private final BoundedTtlCache<String, VerifiedToken> tokenCache;
+    private final BoundedTtlCache<String, UserDetails> principalCache;
+    private final ClickRecorder clickRecorder;
+    private final ShortCodeFilter shortCodeFilter;
+
+    @Operation(summary = "Hit, miss and eviction counters of the in-process caches")
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, CacheStats>> cache() {
+        return ResponseEntity.ok(Map.of(
+                "shortCode", shortCodeCache.stats(),
+                "token", tokenCache.stats(),
+                "principal", principalCache.stats()
+        ));
+    }
+
+    @Operation(summary = "Queue and writer counters of the click recording pipeline")
+    @GetMapping("/clicks")
+    public ResponseEntity<ClickRecorderStats> clicks() {
+        return ResponseEntity.ok(clickRecorder.stats());
+    }
+
+    @Operation(summary = "Size, fill and false-positive counters of the short code Bloom filter")
+    @GetMapping("/bloom")
+    public ResponseEntity<BloomFilterStats> bloom() {
+        return ResponseEntity.ok(shortCodeFilter.stats());
+    }
+}
@@ -8,14 +8,18 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @Slf4j
 @RestController
 @RequestMapping("/urls")
@@ -27,7 +31,6 @@ public class UrlController {
 
 
     private String currentUserEmail(){
-        log.info("AUTH = {}", SecurityContextHolder.getContext().getAuthentication());
         Object principal= SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if(principal instanceof UserDetails ud) return ud.getUsername();
         return principal.toString();
@@ -40,11 +43,37 @@ public class UrlController {
         return urlService.create(request, currentUserEmail());
     }
 
+    @Operation(summary = "Create short URLs in bulk from a JSON array or an NDJSON stream")
+    @ApiResponses({ @ApiResponse(responseCode = "200", description = "One NDJSON result line per input item") })
+    @PostMapping(value = "/bulk",
+            consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void createBulk(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String email = currentUserEmail();
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        urlService.createBulk(request.getInputStream(), response.getOutputStream(), email);
+    }
+
     @Operation(summary="Get all user's URLs")
     @GetMapping("/all")
     public ResponseEntity<?> getAll(){
         return urlService.getAll(currentUserEmail());
     }
+    @Operation(summary = "Get one page of the user's URLs, ordered by id")
+    @GetMapping("/page")
+    public ResponseEntity<?> getPage(@RequestParam(required = false) Long after,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        return urlService.getPage(currentUserEmail(), after, limit);
+    }
+
+    @Operation(summary = "Stream all of the user's URLs as a JSON array")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        String email = currentUserEmail();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        urlService.exportAll(email, response.getOutputStream());
+    }
+
     @Operation(summary = "Delete a URL")
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id, HttpServletRequest request) {
@@ -0,0 +1,10 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+public record AnalyticsDelta(
+        long totalClicks,
+        List<UrlClickDelta> urls,
+        List<DayCount> perDay,
+        List<NameCount> perDevice
+) {}
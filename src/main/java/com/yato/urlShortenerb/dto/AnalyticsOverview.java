@@ -0,0 +1,14 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+public record AnalyticsOverview(
+        long totalClicks,
+        long totalUrls,
+        UrlClicks topUrl,
+        List<DailyClicks> dailyClicks,
+        List<ClickShare> devices,
+        List<ClickShare> referrers,
+        List<UrlClicks> breakdown,
+        AudienceStats audience
+) {}
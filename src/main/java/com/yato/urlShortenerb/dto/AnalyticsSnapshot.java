@@ -0,0 +1,10 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+public record AnalyticsSnapshot(
+        long totalClicks,
+        List<UrlClicks> urls,
+        List<DayCount> perDay,
+        List<NameCount> perDevice
+) {}
@@ -0,0 +1,14 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+// Estimated from sketches: unique visitors within about 2%, top lists may overcount
+public record AudienceStats(
+        long uniqueVisitors,
+        List<NameCount> topReferrers,
+        List<UrlClicks> topLinks,
+        List<ClickTimeQuantile> clickTimes
+) {
+
+    public static final AudienceStats EMPTY = new AudienceStats(0, List.of(), List.of(), List.of());
+}
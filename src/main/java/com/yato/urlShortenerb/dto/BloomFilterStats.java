@@ -0,0 +1,13 @@
+package com.yato.urlShortenerb.dto;
+
+public record BloomFilterStats(
+        boolean ready,
+        long bits,
+        int hashes,
+        long insertions,
+        long memoryBytes,
+        double expectedFalsePositiveRate,
+        long rejected,
+        long falsePositives,
+        long pendingDeletes
+) {}
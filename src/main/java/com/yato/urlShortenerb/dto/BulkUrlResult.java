@@ -0,0 +1,20 @@
+package com.yato.urlShortenerb.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkUrlResult(
+        int index,
+        Long id,
+        String shortCode,
+        String longUrl,
+        String error
+) {
+    public static BulkUrlResult created(int index, Long id, String shortCode, String longUrl) {
+        return new BulkUrlResult(index, id, shortCode, longUrl, null);
+    }
+
+    public static BulkUrlResult failed(int index, String error) {
+        return new BulkUrlResult(index, null, null, null, error);
+    }
+}
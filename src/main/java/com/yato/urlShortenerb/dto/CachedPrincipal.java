@@ -0,0 +1,9 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+/** What the shared cache keeps of a user: never the password hash, logins check that against the database. */
+public record CachedPrincipal(
+        String email,
+        List<String> authorities
+) {}
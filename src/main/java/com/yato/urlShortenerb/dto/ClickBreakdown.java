@@ -0,0 +1,10 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+public record ClickBreakdown(
+        long totalClicks,
+        List<DayCount> perDay,
+        List<NameCount> perDevice,
+        List<NameCount> perReferrer
+) {}
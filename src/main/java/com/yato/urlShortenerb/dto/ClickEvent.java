@@ -0,0 +1,12 @@
+package com.yato.urlShortenerb.dto;
+
+import java.time.LocalDateTime;
+
+public record ClickEvent(
+        Long urlId,
+        String userAgent,
+        UserAgentInfo agent,
+        String referrer,
+        LocalDateTime timestamp,
+        long visitorHash
+) {}
@@ -0,0 +1,9 @@
+package com.yato.urlShortenerb.dto;
+
+public record ClickRecorderStats(
+        long enqueued,
+        long dropped,
+        long written,
+        long failed,
+        int queued
+) {}
@@ -0,0 +1,6 @@
+package com.yato.urlShortenerb.dto;
+
+public record ClickShare(
+        String name,
+        long percentage
+) {}
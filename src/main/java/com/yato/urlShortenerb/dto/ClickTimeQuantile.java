@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.dto;
+
+import java.time.LocalTime;
+
+public record ClickTimeQuantile(
+        int percentile,
+        LocalTime time
+) {}
@@ -0,0 +1,6 @@
+package com.yato.urlShortenerb.dto;
+
+public record DailyClicks(
+        String date,
+        long clicks
+) {}
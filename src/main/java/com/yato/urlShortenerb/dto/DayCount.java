@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.dto;
+
+import java.time.LocalDate;
+
+public record DayCount(
+        LocalDate day,
+        long clicks
+) {}
@@ -0,0 +1,6 @@
+package com.yato.urlShortenerb.dto;
+
+public record NameCount(
+        String name,
+        long clicks
+) {}
@@ -0,0 +1,14 @@
+package com.yato.urlShortenerb.dto;
+
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+
+import java.time.LocalDateTime;
+
+public record ResolvedUrl(
+        Long id,
+        String longUrl,
+        LocalDateTime expiry,
+        RedirectPolicy redirectPolicy,
+        ClickAccounting clickAccounting
+) {}
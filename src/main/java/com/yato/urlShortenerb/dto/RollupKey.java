@@ -0,0 +1,25 @@
+package com.yato.urlShortenerb.dto;
+
+import com.yato.urlShortenerb.entity.DeviceClass;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+public record RollupKey(
+        long urlId,
+        LocalDate day,
+        DeviceClass deviceClass,
+        String referrerHost
+) implements Comparable<RollupKey> {
+
+    private static final Comparator<RollupKey> ORDER = Comparator
+            .comparingLong(RollupKey::urlId)
+            .thenComparing(RollupKey::day)
+            .thenComparing(RollupKey::deviceClass)
+            .thenComparing(RollupKey::referrerHost);
+
+    @Override
+    public int compareTo(RollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
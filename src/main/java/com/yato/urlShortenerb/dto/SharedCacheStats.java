@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.dto;
+
+public record SharedCacheStats(
+        long hits,
+        long misses,
+        long errors,
+        long messagesReceived
+) {}
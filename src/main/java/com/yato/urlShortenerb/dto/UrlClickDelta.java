@@ -0,0 +1,6 @@
+package com.yato.urlShortenerb.dto;
+
+public record UrlClickDelta(
+        Long id,
+        long clicks
+) {}
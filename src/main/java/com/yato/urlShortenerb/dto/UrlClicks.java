@@ -0,0 +1,13 @@
+package com.yato.urlShortenerb.dto;
+
+public record UrlClicks(
+        Long id,
+        String shortCode,
+        String longUrl,
+        long clickCount
+) {
+
+    public UrlClicks withClickCount(long clickCount) {
+        return new UrlClicks(id, shortCode, longUrl, clickCount);
+    }
+}
@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.dto;
+
+import java.util.List;
+
+public record UrlPage(
+        List<UrlResponse> items,
+        Long nextCursor
+) {}
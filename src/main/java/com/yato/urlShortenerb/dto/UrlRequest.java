@@ -1,4 +1,7 @@
 package com.yato.urlShortenerb.dto;
 
-public record UrlRequest(String longUrl, String expiry) {
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+
+public record UrlRequest(String longUrl, String expiry, RedirectPolicy redirectPolicy, ClickAccounting clickAccounting) {
 }
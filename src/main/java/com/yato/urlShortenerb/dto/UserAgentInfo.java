@@ -0,0 +1,19 @@
+package com.yato.urlShortenerb.dto;
+
+import com.yato.urlShortenerb.entity.Browser;
+import com.yato.urlShortenerb.entity.DeviceClass;
+import com.yato.urlShortenerb.entity.OperatingSystem;
+
+public record UserAgentInfo(
+        DeviceClass device,
+        Browser browser,
+        OperatingSystem os
+) {
+
+    public static final UserAgentInfo UNKNOWN =
+            new UserAgentInfo(DeviceClass.UNKNOWN, Browser.UNKNOWN, OperatingSystem.UNKNOWN);
+
+    public boolean isBot() {
+        return device == DeviceClass.BOT;
+    }
+}
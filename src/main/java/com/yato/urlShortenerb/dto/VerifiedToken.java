@@ -0,0 +1,6 @@
+package com.yato.urlShortenerb.dto;
+
+public record VerifiedToken(
+        String subject,
+        long expiresAtMillis
+) {}
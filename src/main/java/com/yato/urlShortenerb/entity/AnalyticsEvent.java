@@ -19,11 +19,19 @@ public class AnalyticsEvent {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String device;
+    private LocalDateTime timestamp;
 
-    private String referrer;
+    // Ids into analytics_user_agent and analytics_referrer
+    private Integer userAgentId;
 
-    private LocalDateTime timestamp;
+    private Integer referrerId;
+
+    // Codes of DeviceClass, Browser and OperatingSystem, classified at ingest
+    private Short deviceClass;
+
+    private Short browser;
+
+    private Short os;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="url_id")
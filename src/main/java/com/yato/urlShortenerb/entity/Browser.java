@@ -0,0 +1,33 @@
+package com.yato.urlShortenerb.entity;
+
+// Codes are stored on analytics_event and must never be renumbered
+public enum Browser {
+    UNKNOWN(0),
+    OTHER(1),
+    CHROME(2),
+    SAFARI(3),
+    FIREFOX(4),
+    EDGE(5),
+    OPERA(6),
+    SAMSUNG(7),
+    IE(8);
+
+    private final short code;
+
+    Browser(int code) {
+        this.code = (short) code;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public static Browser fromCode(int code) {
+        for (Browser value : values()) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        return UNKNOWN;
+    }
+}
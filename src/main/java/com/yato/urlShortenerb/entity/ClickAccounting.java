@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.entity;
+
+public enum ClickAccounting {
+    /** Each redirect served by the app counts as a click. */
+    REDIRECT,
+    /** Only POST /s/{code}/beacon counts, so clicks served from a cached redirect are not lost. */
+    BEACON
+}
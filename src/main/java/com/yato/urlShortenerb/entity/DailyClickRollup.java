@@ -0,0 +1,21 @@
+package com.yato.urlShortenerb.entity;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "analytics_daily_rollup")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyClickRollup {
+
+    @EmbeddedId
+    private DailyClickRollupId id;
+
+    private Long clicks;
+}
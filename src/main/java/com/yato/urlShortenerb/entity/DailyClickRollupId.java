@@ -0,0 +1,29 @@
+package com.yato.urlShortenerb.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyClickRollupId implements Serializable {
+
+    private Long urlId;
+
+    @Column(name = "click_date")
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    private DeviceClass deviceClass;
+
+    private String referrerHost;
+}
@@ -0,0 +1,29 @@
+package com.yato.urlShortenerb.entity;
+
+// Codes are stored on analytics_event and must never be renumbered
+public enum DeviceClass {
+    UNKNOWN(0),
+    DESKTOP(1),
+    MOBILE(2),
+    TABLET(3),
+    BOT(4);
+
+    private final short code;
+
+    DeviceClass(int code) {
+        this.code = (short) code;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public static DeviceClass fromCode(int code) {
+        for (DeviceClass value : values()) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,32 @@
+package com.yato.urlShortenerb.entity;
+
+// Codes are stored on analytics_event and must never be renumbered
+public enum OperatingSystem {
+    UNKNOWN(0),
+    OTHER(1),
+    WINDOWS(2),
+    MACOS(3),
+    IOS(4),
+    ANDROID(5),
+    LINUX(6),
+    CHROMEOS(7);
+
+    private final short code;
+
+    OperatingSystem(int code) {
+        this.code = (short) code;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public static OperatingSystem fromCode(int code) {
+        for (OperatingSystem value : values()) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,22 @@
+package com.yato.urlShortenerb.entity;
+
+public enum RedirectPolicy {
+    /** 302, never cached: every click reaches the app. */
+    TEMPORARY(302),
+    /** 302 that shared caches (CDN) may keep for a short s-maxage; browsers always revalidate. */
+    CDN(302),
+    /** 301 cached by browsers and CDNs for max-age. */
+    MOVED_PERMANENTLY(301),
+    /** 308, like 301 but clients must keep the request method. */
+    PERMANENT_REDIRECT(308);
+
+    private final int status;
+
+    RedirectPolicy(int status) {
+        this.status = status;
+    }
+
+    public int status() {
+        return status;
+    }
+}
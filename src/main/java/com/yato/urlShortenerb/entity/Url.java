@@ -1,5 +1,6 @@
 package com.yato.urlShortenerb.entity;
 
+import com.yato.urlShortenerb.util.ShortCodeCodec;
 import lombok.*;
 import jakarta.persistence.*;
 
@@ -12,8 +13,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class Url {
 
+    // Pooled sequence so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "urls_seq")
+    @SequenceGenerator(name = "urls_seq", sequenceName = "urls_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -23,6 +26,10 @@ public class Url {
     @Column(unique = true,nullable = false)
     private String shortCode;
 
+    // shortCode packed by ShortCodeCodec for integer index probes, null if it does not pack
+    @Column(unique = true)
+    private Long shortCodeKey;
+
     @Column(nullable = false,columnDefinition = "text")
     private String longUrl;
 
@@ -31,4 +38,20 @@ public class Url {
     private LocalDateTime crtAt= LocalDateTime.now();
 
     private LocalDateTime expiry;
+
+    // Null falls back to app.redirect.default-policy
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private RedirectPolicy redirectPolicy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ClickAccounting clickAccounting;
+
+    @PrePersist
+    @PreUpdate
+    void packShortCode() {
+        long key = shortCode == null ? ShortCodeCodec.NONE : ShortCodeCodec.pack(shortCode);
+        shortCodeKey = key == ShortCodeCodec.NONE ? null : key;
+    }
 }
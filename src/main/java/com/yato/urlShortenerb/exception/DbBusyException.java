@@ -0,0 +1,7 @@
+package com.yato.urlShortenerb.exception;
+
+public class DbBusyException extends RuntimeException {
+    public DbBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.yato.urlShortenerb.exception;
 
+import com.yato.urlShortenerb.exception.DbBusyException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,6 +10,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(DbBusyException.class)
+    public ResponseEntity<?> handleDbBusy(DbBusyException ex){
+        log.warn("Rejected request: {}", ex.getMessage());
+        return ResponseEntity.status(503).header("Retry-After", "1").body("Service busy, retry shortly");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleAll(Exception ex){
         log.error("Unhandled exception: ",ex);
@@ -0,0 +1,88 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.dto.ClickBreakdown;
+import com.yato.urlShortenerb.dto.DayCount;
+import com.yato.urlShortenerb.dto.NameCount;
+import com.yato.urlShortenerb.dto.UrlClicks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsOverviewRepo {
+
+    // GROUPING(click_date, device_class, referrer_host) bitmask of each grouping set
+    private static final int PER_DAY = 0b011;
+    private static final int PER_DEVICE = 0b101;
+    private static final int PER_REFERRER = 0b110;
+    private static final int TOTAL = 0b111;
+
+    // Every rollup aggregate of one user in a single scan, joined on user_id rather than an IN list of urls
+    private static final String BREAKDOWN = """
+        SELECT GROUPING(r.click_date, r.device_class, r.referrer_host) AS grp,
+               r.click_date, r.device_class, r.referrer_host, SUM(r.clicks) AS clicks
+        FROM analytics_daily_rollup r
+        JOIN urls u ON u.id = r.url_id
+        WHERE u.user_id = ?
+        GROUP BY GROUPING SETS ((r.click_date), (r.device_class), (r.referrer_host), ())
+        """;
+
+    private static final String URL_CLICKS = """
+        SELECT id, short_code, long_url, COALESCE(click_count, 0) AS click_count
+        FROM urls
+        WHERE user_id = ?
+        ORDER BY id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickBreakdown breakdown(long userId) {
+        long[] total = {0};
+        List<DayCount> perDay = new ArrayList<>();
+        List<NameCount> perDevice = new ArrayList<>();
+        List<NameCount> perReferrer = new ArrayList<>();
+
+        jdbcTemplate.query(BREAKDOWN, rs -> {
+            long clicks = rs.getLong("clicks");
+            switch (rs.getInt("grp")) {
+                case PER_DAY -> perDay.add(new DayCount(rs.getDate("click_date").toLocalDate(), clicks));
+                case PER_DEVICE -> perDevice.add(new NameCount(rs.getString("device_class"), clicks));
+                case PER_REFERRER -> perReferrer.add(new NameCount(rs.getString("referrer_host"), clicks));
+                case TOTAL -> total[0] = clicks;
+                default -> throw new IllegalStateException("Unexpected grouping " + rs.getInt("grp"));
+            }
+        }, userId);
+
+        perDay.sort(Comparator.comparing(DayCount::day));
+        perDevice.sort(Comparator.comparingLong(NameCount::clicks).reversed());
+        perReferrer.sort(Comparator.comparingLong(NameCount::clicks).reversed());
+        return new ClickBreakdown(total[0], perDay, perDevice, perReferrer);
+    }
+
+    public List<UrlClicks> urlClicks(long userId) {
+        return jdbcTemplate.query(URL_CLICKS,
+                (rs, i) -> new UrlClicks(rs.getLong("id"), rs.getString("short_code"),
+                        rs.getString("long_url"), rs.getLong("click_count")),
+                userId);
+    }
+
+    /** Owner of each existing url in {@code urlIds}; urls that no longer exist are left out. */
+    public LongLongHashMap owners(Long[] urlIds) {
+        LongLongHashMap owners = new LongLongHashMap(urlIds.length, 0);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, user_id FROM urls WHERE id = ANY (?)");
+            ps.setArray(1, con.createArrayOf("bigint", urlIds));
+            return ps;
+        }, rs -> {
+            owners.put(rs.getLong(1), rs.getLong(2));
+        });
+        return owners;
+    }
+}
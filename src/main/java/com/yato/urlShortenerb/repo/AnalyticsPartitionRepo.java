@@ -0,0 +1,69 @@
+package com.yato.urlShortenerb.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * DDL for the monthly partitions of analytics_event. Partitions are named
+ * analytics_event_pYYYYMM and cover [first day of month, first day of next month).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsPartitionRepo {
+
+    private static final String PREFIX = "analytics_event_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('analytics_event')", String.class);
+        return "p".equals(kind);
+    }
+
+    public List<YearMonth> partitions() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = to_regclass('analytics_event')
+                        """, String.class)
+                .stream()
+                .map(AnalyticsPartitionRepo::monthOf)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    public void create(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name(month)
+                + " PARTITION OF analytics_event FOR VALUES FROM ('" + month.atDay(1)
+                + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    public void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name(month));
+    }
+
+    private static String name(YearMonth month) {
+        return PREFIX + SUFFIX.format(month);
+    }
+
+    private static YearMonth monthOf(String table) {
+        if (!table.startsWith(PREFIX) || table.length() != PREFIX.length() + 6) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(table.substring(PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.cache.ClickSketch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Persisted {@link ClickSketch}es of urls and users. Writers merge their
+ * deltas into the stored sketch under a row lock, so nodes can flush
+ * concurrently and reads are a single primary key lookup.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsSketchRepo {
+
+    public enum Scope {
+        URL("analytics_url_sketch", "url_id"),
+        USER("analytics_user_sketch", "user_id");
+
+        private final String table;
+        private final String idColumn;
+
+        Scope(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Salt generated by schema.sql, for when none is configured. */
+    public String generatedVisitorSalt() {
+        return jdbcTemplate.queryForObject("SELECT salt FROM analytics_visitor_salt", String.class);
+    }
+
+    /** The stored sketch, or null when nothing was recorded or it cannot be read. */
+    public ClickSketch find(Scope scope, long id) {
+        List<byte[]> rows = jdbcTemplate.query(
+                "SELECT sketch FROM " + scope.table + " WHERE " + scope.idColumn + " = ?",
+                (rs, i) -> rs.getBytes(1), id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        try {
+            return ClickSketch.fromBytes(rows.get(0));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Merges both sets of deltas into the stored sketches in one transaction. */
+    @Transactional
+    public void mergeAll(SortedMap<Long, ClickSketch> urlDeltas, SortedMap<Long, ClickSketch> userDeltas) {
+        merge(Scope.URL, urlDeltas);
+        merge(Scope.USER, userDeltas);
+    }
+
+    private void merge(Scope scope, SortedMap<Long, ClickSketch> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Long[] ids = deltas.keySet().toArray(Long[]::new);
+        byte[] empty = new ClickSketch().toBytes();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("INSERT INTO " + scope.table + " (" + scope.idColumn
+                    + ", clicks, sketch) SELECT unnest(?), 0, ? ON CONFLICT DO NOTHING");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setBytes(2, empty);
+            return ps;
+        });
+
+        // Locked in id order on every node, so concurrent flushes cannot deadlock
+        Map<Long, ClickSketch> stored = new HashMap<>(ids.length * 2);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT " + scope.idColumn + ", sketch FROM " + scope.table
+                    + " WHERE " + scope.idColumn + " = ANY (?) ORDER BY " + scope.idColumn + " FOR UPDATE");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+            stored.put(rs.getLong(1), readOrEmpty(rs.getBytes(2)));
+        });
+
+        List<Object[]> updates = new ArrayList<>(ids.length);
+        deltas.forEach((id, delta) -> {
+            ClickSketch sketch = stored.getOrDefault(id, new ClickSketch());
+            sketch.merge(delta);
+            updates.add(new Object[] {sketch.clicks(), sketch.toBytes(), id});
+        });
+        jdbcTemplate.batchUpdate("UPDATE " + scope.table + " SET clicks = ?, sketch = ?, updated_at = LOCALTIMESTAMP WHERE "
+                + scope.idColumn + " = ?", updates);
+    }
+
+    // A sketch that no longer decodes starts over rather than blocking every later flush
+    private static ClickSketch readOrEmpty(byte[] bytes) {
+        try {
+            return ClickSketch.fromBytes(bytes);
+        } catch (IllegalArgumentException e) {
+            return new ClickSketch();
+        }
+    }
+}
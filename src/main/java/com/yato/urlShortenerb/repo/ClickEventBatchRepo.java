@@ -0,0 +1,188 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.RollupKey;
+import com.yato.urlShortenerb.repo.EventDictionaryRepo.Dictionary;
+import com.yato.urlShortenerb.entity.DeviceClass;
+import com.yato.urlShortenerb.util.ClickClassifier;
+import com.yato.urlShortenerb.util.UserAgentParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class ClickEventBatchRepo {
+
+    // Live writers hold this advisory lock shared, a rollup rebuild holds it exclusively
+    private static final long ROLLUP_LOCK = 0x726f6c6c7570L;
+
+    private static final String INSERT_EVENT = """
+        INSERT INTO analytics_event (url_id, timestamp, user_agent_id, referrer_id, device_class, browser, os)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String ADD_CLICKS = """
+        UPDATE urls
+        SET click_count = COALESCE(click_count, 0) + ?
+        WHERE id = ?
+        """;
+
+    private static final String UPSERT_ROLLUP = """
+        INSERT INTO analytics_daily_rollup (url_id, click_date, device_class, referrer_host, clicks)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (url_id, click_date, device_class, referrer_host)
+        DO UPDATE SET clicks = analytics_daily_rollup.clicks + EXCLUDED.clicks
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventDictionaryRepo dictionaryRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    // Bot clicks are still stored as events but left out of the rollups
+    @Value("${app.analytics.exclude-bots:true}")
+    private boolean excludeBots;
+
+    public void saveAll(List<ClickEvent> events) {
+        // Dictionary ids are committed before the events that reference them
+        Map<String, Integer> userAgents = dictionaryRepo.encode(Dictionary.USER_AGENT,
+                events.stream().map(e -> EventDictionaryRepo.normalize(e.userAgent())).toList());
+        Map<String, Integer> referrers = dictionaryRepo.encode(Dictionary.REFERRER,
+                events.stream().map(e -> EventDictionaryRepo.normalize(e.referrer())).toList());
+
+        transactionTemplate.executeWithoutResult(status -> writeEvents(events, userAgents, referrers));
+    }
+
+    private void writeEvents(List<ClickEvent> events, Map<String, Integer> userAgents, Map<String, Integer> referrers) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock_shared(" + ROLLUP_LOCK + ")");
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events, events.size(), (ps, e) -> {
+            ps.setLong(1, e.urlId());
+            ps.setTimestamp(2, Timestamp.valueOf(e.timestamp()));
+            setId(ps, 3, userAgents.get(EventDictionaryRepo.normalize(e.userAgent())));
+            setId(ps, 4, referrers.get(EventDictionaryRepo.normalize(e.referrer())));
+            ps.setShort(5, e.agent().device().code());
+            ps.setShort(6, e.agent().browser().code());
+            ps.setShort(7, e.agent().os().code());
+        });
+
+        Map<RollupKey, Long> rollups = new TreeMap<>();
+        for (ClickEvent e : events) {
+            if (excludeBots && e.agent().isBot()) {
+                continue;
+            }
+            RollupKey key = new RollupKey(
+                    e.urlId(),
+                    e.timestamp().toLocalDate(),
+                    e.agent().device(),
+                    ClickClassifier.referrerHost(e.referrer())
+            );
+            rollups.merge(key, 1L, Long::sum);
+        }
+
+        upsertRollups(rollups);
+    }
+
+    @Transactional
+    public void addClicks(LongLongHashMap clicks) {
+        long[] ids = new long[clicks.size()];
+        int[] next = {0};
+        clicks.forEach((id, delta) -> ids[next[0]++] = id);
+        // Same row order on every node keeps concurrent flushes from deadlocking
+        Arrays.sort(ids);
+        jdbcTemplate.batchUpdate(ADD_CLICKS, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, clicks.get(ids[i]));
+                ps.setLong(2, ids[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.length;
+            }
+        });
+    }
+
+    /**
+     * Recomputes the rollups of every url in [fromUrlId, toUrlId] from the raw
+     * events, blocking live writers for the duration of the chunk. Days before
+     * {@code since} are left alone: their events may have aged out already.
+     */
+    @Transactional
+    public int rebuildRollups(long fromUrlId, long toUrlId, LocalDate since) {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + ROLLUP_LOCK + ")");
+        jdbcTemplate.update("DELETE FROM analytics_daily_rollup WHERE url_id BETWEEN ? AND ? AND click_date >= ?",
+                fromUrlId, toUrlId, Date.valueOf(since));
+
+        Map<RollupKey, Long> rollups = new TreeMap<>();
+        jdbcTemplate.query("""
+                SELECT e.url_id, e.timestamp, e.device_class, ua.value, r.value
+                FROM analytics_event e
+                LEFT JOIN analytics_user_agent ua ON ua.id = e.user_agent_id
+                LEFT JOIN analytics_referrer r ON r.id = e.referrer_id
+                WHERE e.url_id BETWEEN ? AND ? AND e.timestamp >= ?
+                """,
+                rs -> {
+                    Timestamp ts = rs.getTimestamp(2);
+                    if (ts == null) {
+                        return;
+                    }
+                    // Events written before classification at ingest have no device code
+                    short code = rs.getShort(3);
+                    DeviceClass device = rs.wasNull()
+                            ? UserAgentParser.parse(rs.getString(4)).device()
+                            : DeviceClass.fromCode(code);
+                    if (excludeBots && device == DeviceClass.BOT) {
+                        return;
+                    }
+                    RollupKey key = new RollupKey(
+                            rs.getLong(1),
+                            ts.toLocalDateTime().toLocalDate(),
+                            device,
+                            ClickClassifier.referrerHost(rs.getString(5))
+                    );
+                    rollups.merge(key, 1L, Long::sum);
+                },
+                fromUrlId, toUrlId, Timestamp.valueOf(since.atStartOfDay()));
+
+        upsertRollups(rollups);
+        return rollups.size();
+    }
+
+    private static void setId(PreparedStatement ps, int index, Integer id) throws SQLException {
+        if (id == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, id);
+        }
+    }
+
+    private void upsertRollups(Map<RollupKey, Long> rollups) {
+        List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(rollups.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rows, rows.size(), (ps, r) -> {
+            RollupKey key = r.getKey();
+            ps.setLong(1, key.urlId());
+            ps.setDate(2, Date.valueOf(key.day()));
+            ps.setString(3, key.deviceClass().name());
+            ps.setString(4, key.referrerHost());
+            ps.setLong(5, r.getValue());
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.entity.DailyClickRollup;
+import com.yato.urlShortenerb.entity.DailyClickRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DailyClickRollupRepo extends JpaRepository<DailyClickRollup, DailyClickRollupId> {
+}
@@ -0,0 +1,96 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Maps raw User-Agent and Referer strings to small integer ids stored on
+ * each event. Ids never change once assigned, so they are cached in-process
+ * and only unseen values reach the database.
+ */
+@Repository
+public class EventDictionaryRepo {
+
+    public static final int MAX_LENGTH = 512;
+
+    public enum Dictionary {
+        USER_AGENT("analytics_user_agent"),
+        REFERRER("analytics_referrer");
+
+        private final String table;
+
+        Dictionary(String table) {
+            this.table = table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Dictionary, BoundedTtlCache<String, Integer>> caches;
+
+    public EventDictionaryRepo(JdbcTemplate jdbcTemplate,
+                               BoundedTtlCache<String, Integer> userAgentIdCache,
+                               BoundedTtlCache<String, Integer> referrerIdCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.caches = Map.of(Dictionary.USER_AGENT, userAgentIdCache, Dictionary.REFERRER, referrerIdCache);
+    }
+
+    /** Blank values are not stored; long values are truncated to {@link #MAX_LENGTH}. */
+    public static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.length() > MAX_LENGTH ? value.substring(0, MAX_LENGTH) : value;
+    }
+
+    /**
+     * Returns the id of every normalized value, inserting unseen ones. Must run
+     * outside the caller's transaction: cached ids have to be committed.
+     */
+    public Map<String, Integer> encode(Dictionary dictionary, Collection<String> values) {
+        BoundedTtlCache<String, Integer> cache = caches.get(dictionary);
+        Map<String, Integer> ids = new HashMap<>();
+        // Sorted so concurrent writers insert in the same order and cannot deadlock
+        TreeSet<String> missing = new TreeSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            Integer id = cache.get(value);
+            if (id != null) {
+                ids.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        String[] array = missing.toArray(String[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO " + dictionary.table + " (value) SELECT unnest(?) ON CONFLICT (value) DO NOTHING");
+            ps.setArray(1, con.createArrayOf("varchar", array));
+            return ps;
+        });
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, value FROM " + dictionary.table + " WHERE value = ANY (?)");
+            ps.setArray(1, con.createArrayOf("varchar", array));
+            return ps;
+        }, rs -> {
+            int id = rs.getInt(1);
+            String value = rs.getString(2);
+            ids.put(value, id);
+            cache.put(value, id);
+        });
+        return ids;
+    }
+}
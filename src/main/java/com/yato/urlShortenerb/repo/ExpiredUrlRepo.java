@@ -0,0 +1,69 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.dto.PurgedUrl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ExpiredUrlRepo {
+
+    // One statement per chunk: it runs in its own short transaction and only row-locks the chunk.
+    // SKIP LOCKED lets several instances purge side by side and never waits on rows being updated.
+    private static final String DOOMED = """
+        WITH doomed AS (
+            SELECT id FROM urls
+            WHERE expiry < ?
+            ORDER BY expiry
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        ), events AS (
+            DELETE FROM analytics_event e USING doomed d WHERE e.url_id = d.id
+        ), rollups AS (
+            DELETE FROM analytics_daily_rollup r USING doomed d WHERE r.url_id = d.id
+            RETURNING r.url_id, r.click_date, r.device_class, r.referrer_host, r.clicks
+        ), sketches AS (
+            DELETE FROM analytics_url_sketch s USING doomed d WHERE s.url_id = d.id
+        ), removed AS (
+            DELETE FROM urls u USING doomed d WHERE u.id = d.id
+            RETURNING u.id, u.user_id, u.short_code, u.long_url, u.click_count, u.crt_at, u.expiry
+        ), changed AS (
+            INSERT INTO url_changes (short_code) SELECT short_code FROM removed
+        )
+        """;
+
+    private static final String ARCHIVE = """
+        , archived_rollups AS (
+            INSERT INTO analytics_daily_rollup_archive (url_id, click_date, device_class, referrer_host, clicks)
+            SELECT * FROM rollups
+            ON CONFLICT DO NOTHING
+        ), archived AS (
+            INSERT INTO urls_archive (id, user_id, short_code, long_url, click_count, crt_at, expiry)
+            SELECT * FROM removed
+            ON CONFLICT (id) DO NOTHING
+        )
+        """;
+
+    private static final String RESULT = "SELECT id, short_code FROM removed";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<PurgedUrl> deleteChunk(LocalDateTime expiredBefore, int limit) {
+        return purge(DOOMED + RESULT, expiredBefore, limit);
+    }
+
+    public List<PurgedUrl> archiveChunk(LocalDateTime expiredBefore, int limit) {
+        return purge(DOOMED + ARCHIVE + RESULT, expiredBefore, limit);
+    }
+
+    private List<PurgedUrl> purge(String sql, LocalDateTime expiredBefore, int limit) {
+        return jdbcTemplate.query(sql,
+                (rs, i) -> new PurgedUrl(rs.getLong("id"), rs.getString("short_code")),
+                Timestamp.valueOf(expiredBefore), limit);
+    }
+}
@@ -0,0 +1,84 @@
+package com.yato.urlShortenerb.repo;
+
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/** Feeds the memory-mapped short code index: urls by id and the url_changes log. */
+@Repository
+@RequiredArgsConstructor
+public class ShortCodeIndexRepo {
+
+    private static final String URLS_AFTER = """
+        SELECT id, short_code, long_url, expiry, redirect_policy, click_accounting
+        FROM urls
+        WHERE id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Passes up to {@code limit} urls with an id above {@code afterId} in id order and returns the last id seen. */
+    public long forEachUrlAfter(long afterId, int limit, BiConsumer<String, ResolvedUrl> consumer) {
+        long[] last = {afterId};
+        jdbcTemplate.query(URLS_AFTER, rs -> {
+            long id = rs.getLong("id");
+            Timestamp expiry = rs.getTimestamp("expiry");
+            String policy = rs.getString("redirect_policy");
+            String accounting = rs.getString("click_accounting");
+            consumer.accept(rs.getString("short_code"), new ResolvedUrl(
+                    id,
+                    rs.getString("long_url"),
+                    expiry == null ? null : expiry.toLocalDateTime(),
+                    policy == null ? null : RedirectPolicy.valueOf(policy),
+                    accounting == null ? null : ClickAccounting.valueOf(accounting)));
+            last[0] = id;
+        }, afterId, limit);
+        return last[0];
+    }
+
+    public void recordChanges(Collection<String> shortCodes) {
+        jdbcTemplate.batchUpdate("INSERT INTO url_changes (short_code) VALUES (?)", shortCodes, shortCodes.size(),
+                (ps, code) -> ps.setString(1, code));
+    }
+
+    public void forEachChangeSince(LocalDateTime since, Consumer<String> consumer) {
+        jdbcTemplate.query("SELECT DISTINCT short_code FROM url_changes WHERE changed_at > ?",
+                rs -> {
+                    consumer.accept(rs.getString(1));
+                },
+                Timestamp.valueOf(since));
+    }
+
+    public int purgeChangesBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM url_changes WHERE changed_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    /** Database clock, which stamps url_changes. */
+    public LocalDateTime now() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", Timestamp.class).toLocalDateTime();
+    }
+
+    public long countUrls() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM urls", Long.class);
+    }
+
+    public long maxUrlId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM urls", Long.class);
+    }
+
+    /** Random id of this database, so files built from another database are never trusted. */
+    public long databaseId() {
+        return jdbcTemplate.queryForObject("SELECT id FROM database_identity", Long.class);
+    }
+}
@@ -1,13 +1,61 @@
 package com.yato.urlShortenerb.repo;
 
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.dto.UrlResponse;
 import com.yato.urlShortenerb.entity.Url;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UrlRepo extends JpaRepository<Url,Long> {
     Optional<Url> findByShortCode(String shortCode);
     List<Url> findByUserId(Long userId);
+    boolean existsByShortCode(String shortCode);
+
+    @Query("""
+        SELECT new com.yato.urlShortenerb.dto.ResolvedUrl(u.id, u.longUrl, u.expiry, u.redirectPolicy, u.clickAccounting)
+        FROM Url u
+        WHERE u.shortCode = :shortCode
+        """)
+    Optional<ResolvedUrl> findResolvedByShortCode(String shortCode);
+
+    @Query("""
+        SELECT new com.yato.urlShortenerb.dto.ResolvedUrl(u.id, u.longUrl, u.expiry, u.redirectPolicy, u.clickAccounting)
+        FROM Url u
+        WHERE u.shortCodeKey = :shortCodeKey
+        """)
+    Optional<ResolvedUrl> findResolvedByShortCodeKey(long shortCodeKey);
+
+    @Query("""
+        SELECT new com.yato.urlShortenerb.dto.UrlResponse(u.id, u.shortCode, u.longUrl, u.clickCount)
+        FROM Url u
+        WHERE u.user.id = :userId AND u.id > :afterId
+        ORDER BY u.id
+        """)
+    List<UrlResponse> findPageByUserId(Long userId, Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("""
+        SELECT new com.yato.urlShortenerb.dto.UrlResponse(u.id, u.shortCode, u.longUrl, u.clickCount)
+        FROM Url u
+        WHERE u.user.id = :userId
+        ORDER BY u.id
+        """)
+    Stream<UrlResponse> streamByUserId(Long userId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT u.shortCode FROM Url u")
+    Stream<String> streamAllShortCodes();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("SELECT u.shortCode FROM Url u WHERE u.crtAt > :since")
+    Stream<String> streamShortCodesCreatedAfter(LocalDateTime since);
 
 }
@@ -2,6 +2,10 @@ package com.yato.urlShortenerb.service;
 
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+
 public interface AnalyticsService {
     ResponseEntity<?> getAnalytics(String userEmail);
+    ResponseEntity<?> streamAnalytics(String userEmail) throws IOException;
+    ResponseEntity<?> getUrlAudience(Long id, String userEmail);
 }
@@ -0,0 +1,9 @@
+package com.yato.urlShortenerb.service;
+
+public interface ClickCounterStore {
+    void increment(long urlId);
+    long pending(long urlId);
+    long withPending(Long urlId, Long flushedCount);
+    void forget(long urlId);
+    void flush();
+}
@@ -0,0 +1,9 @@
+package com.yato.urlShortenerb.service;
+
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.ClickRecorderStats;
+
+public interface ClickRecorder {
+    void record(ClickEvent event);
+    ClickRecorderStats stats();
+}
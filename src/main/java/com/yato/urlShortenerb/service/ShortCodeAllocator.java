@@ -0,0 +1,16 @@
+package com.yato.urlShortenerb.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public interface ShortCodeAllocator {
+    String next();
+
+    default List<String> next(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(next());
+        }
+        return codes;
+    }
+}
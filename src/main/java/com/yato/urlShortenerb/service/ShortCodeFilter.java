@@ -0,0 +1,12 @@
+package com.yato.urlShortenerb.service;
+
+import com.yato.urlShortenerb.dto.BloomFilterStats;
+
+public interface ShortCodeFilter {
+    boolean mightExist(String shortCode);
+    void added(String shortCode);
+    void removed(String shortCode);
+    void recordFalsePositive(String shortCode);
+    void rebuild();
+    BloomFilterStats stats();
+}
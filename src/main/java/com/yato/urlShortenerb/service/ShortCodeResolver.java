@@ -0,0 +1,10 @@
+package com.yato.urlShortenerb.service;
+
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+
+import java.util.Optional;
+
+public interface ShortCodeResolver {
+    Optional<ResolvedUrl> resolve(String shortCode);
+    void invalidate(String shortCode);
+}
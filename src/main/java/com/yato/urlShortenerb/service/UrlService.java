@@ -3,9 +3,16 @@ package com.yato.urlShortenerb.service;
 import com.yato.urlShortenerb.dto.UrlRequest;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public interface UrlService {
     ResponseEntity<?> create(UrlRequest request, String currentUserEmail);
+    void createBulk(InputStream requests, OutputStream results, String currentUserEmail) throws IOException;
     ResponseEntity<?> getAll(String currentUserEmail);
+    ResponseEntity<?> getPage(String currentUserEmail, Long after, int limit);
+    void exportAll(String currentUserEmail, OutputStream out) throws IOException;
     ResponseEntity<?> delete(Long id, String currentUserEmail);
     ResponseEntity<?> update(Long id, UrlRequest request, String currentUserEmail);
 }
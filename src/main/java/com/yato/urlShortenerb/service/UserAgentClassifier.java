@@ -0,0 +1,11 @@
+package com.yato.urlShortenerb.service;
+
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+
+public interface UserAgentClassifier {
+
+    UserAgentInfo classify(String userAgent);
+
+    /** False for clicks that are stored but left out of click counts and rollups. */
+    boolean isCounted(UserAgentInfo agent);
+}
@@ -0,0 +1,73 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.repo.AnalyticsPartitionRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps monthly analytics_event partitions created ahead of time and drops
+ * whole partitions once they fall out of the retention window. Rollups are
+ * not affected, only the raw events.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOnDatabaseInitialization
+public class AnalyticsPartitionMaintainer {
+
+    private final AnalyticsPartitionRepo partitionRepo;
+
+    @Value("${app.analytics.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition
+    @Value("${app.analytics.partitions.retention-months:13}")
+    private int retentionMonths;
+
+    @PostConstruct
+    void init() {
+        if (!partitionRepo.isPartitioned()) {
+            throw new IllegalStateException(
+                    "analytics_event is not partitioned, run db/migrate-analytics-event-partitioned.sql first");
+        }
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.partitions.check-interval:6h}",
+            initialDelayString = "${app.analytics.partitions.check-interval:6h}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        ensurePartitions(current, current.plusMonths(monthsAhead));
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths - 1L);
+            for (YearMonth month : partitionRepo.partitions()) {
+                if (month.isBefore(oldestKept)) {
+                    partitionRepo.drop(month);
+                    log.info("Dropped analytics_event partition for {}", month);
+                }
+            }
+        }
+    }
+
+    public void ensurePartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            partitionRepo.create(month);
+        }
+    }
+
+    /** First day for which raw events are still complete, or null if there are no partitions. */
+    public LocalDate oldestRetainedDay() {
+        List<YearMonth> partitions = partitionRepo.partitions();
+        return partitions.isEmpty() ? null : partitions.get(0).atDay(1);
+    }
+}
@@ -1,94 +1,186 @@
 package com.yato.urlShortenerb.service.impl;
 
 
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.ClickSketch;
+import com.yato.urlShortenerb.cache.TDigest;
+import com.yato.urlShortenerb.dto.AnalyticsOverview;
+import com.yato.urlShortenerb.dto.AnalyticsSnapshot;
+import com.yato.urlShortenerb.dto.AudienceStats;
+import com.yato.urlShortenerb.dto.ClickBreakdown;
+import com.yato.urlShortenerb.dto.ClickShare;
+import com.yato.urlShortenerb.dto.ClickTimeQuantile;
+import com.yato.urlShortenerb.dto.DailyClicks;
+import com.yato.urlShortenerb.dto.NameCount;
+import com.yato.urlShortenerb.dto.UrlClicks;
 import com.yato.urlShortenerb.entity.Url;
-import com.yato.urlShortenerb.repo.AnalyticsEventRepo;
+import com.yato.urlShortenerb.repo.AnalyticsOverviewRepo;
+import com.yato.urlShortenerb.repo.AnalyticsSketchRepo;
 import com.yato.urlShortenerb.repo.UrlRepo;
 import com.yato.urlShortenerb.repo.UserRepo;
 import com.yato.urlShortenerb.service.AnalyticsService;
+import com.yato.urlShortenerb.service.ClickCounterStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AnalyticsServiceImpl implements AnalyticsService {
 
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("MMM d");
+    private static final int TOP = 10;
+    private static final int[] CLICK_TIME_PERCENTILES = {10, 25, 50, 75, 90};
+
     private final UserRepo userRepo;
     private final UrlRepo urlRepo;
-    private final AnalyticsEventRepo analyticsRepo;
+    private final AnalyticsOverviewRepo overviewRepo;
+    private final AnalyticsSketchRepo sketchRepo;
+    private final ClickCounterStore clickCounterStore;
+    private final BoundedTtlCache<String, AnalyticsOverview> analyticsCache;
+    private final AnalyticsStreamHub analyticsStream;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    @Transactional(readOnly = true)
     public ResponseEntity<?> getAnalytics(String userEmail){
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            AnalyticsOverview cached = analyticsCache.get(userEmail);
+            if (cached != null) {
+                return ResponseEntity.ok(cached);
+            }
+
+            var user = userRepo.findByEmail(userEmail).orElse(null);
+            if(user == null)
+                return ResponseEntity.status(401).body("Invalid user");
+
+            AnalyticsOverview overview = buildOverview(user.getId());
+            analyticsCache.put(userEmail, overview);
+            return ResponseEntity.ok(overview);
+        } finally {
+            sample.stop(Timer.builder("urlshortener.analytics.query")
+                    .description("Dashboard analytics queries and aggregation")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public ResponseEntity<?> streamAnalytics(String userEmail) throws IOException {
         var user = userRepo.findByEmail(userEmail).orElse(null);
-        if(user == null)
+        if (user == null) {
             return ResponseEntity.status(401).body("Invalid user");
+        }
 
-        List<Url> urls = urlRepo.findByUserId(user.getId());
-
-        long totalClicks = analyticsRepo.countByUrl(urls);
-        long totalUrls = urls.size();
+        SseEmitter emitter = analyticsStream.subscribe(user.getId(), () -> buildSnapshot(user.getId()));
+        if (emitter == null) {
+            return ResponseEntity.status(503).body("Too many analytics streams");
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
 
-        Url topUrls = urls.stream()
-                .max(Comparator.comparingLong(u -> u.getClickCount() == null ? 0 : u.getClickCount()))
-                .orElse(null);
+    @Override
+    public ResponseEntity<?> getUrlAudience(Long id, String userEmail) {
+        var user = userRepo.findByEmail(userEmail).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(401).body("Invalid user");
+        }
 
-        List<Object[]> daily = analyticsRepo.countClicksPerDay(urls);
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("MMM d");
-
-        List<Map<String, Object>> dailyClicks = new ArrayList<>();
-        for(Object[] row : daily){
-            try {
-                Map<String, Object> m = new HashMap<>();
-                if(row[0] != null) {
-                    m.put("date", fmt.format(((java.sql.Date) row[0]).toLocalDate()));
-                    m.put("clicks", ((Long) row[1]).intValue());
-                    dailyClicks.add(m);
-                }
-            } catch(Exception e) {
-                log.error("Error processing daily click row", e);
-            }
+        Url url = urlRepo.findById(id).orElse(null);
+        if (url == null) {
+            return ResponseEntity.status(404).body("URL not found");
         }
+        if (!url.getUser().getId().equals(user.getId())) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        return ResponseEntity.ok(audienceOf(sketchRepo.find(AnalyticsSketchRepo.Scope.URL, id), Map.of()));
+    }
+
+    // Raw counts rather than shares, so stream clients can add deltas to them
+    private AnalyticsSnapshot buildSnapshot(long userId) {
+        ClickBreakdown clicks = overviewRepo.breakdown(userId);
+        return new AnalyticsSnapshot(clicks.totalClicks(), urlClicks(userId), clicks.perDay(), clicks.perDevice());
+    }
+
+    private AnalyticsOverview buildOverview(long userId) {
+        ClickBreakdown clicks = overviewRepo.breakdown(userId);
+
+        List<UrlClicks> breakdown = urlClicks(userId);
+
+        UrlClicks topUrl = breakdown.stream()
+                .max(Comparator.comparingLong(UrlClicks::clickCount))
+                .orElse(null);
 
-        List<Object[]> devices = analyticsRepo.countDevices(urls);
-        List<Map<String,Object>> deviceStats = new ArrayList<>();
+        List<DailyClicks> dailyClicks = clicks.perDay().stream()
+                .map(d -> new DailyClicks(DAY.format(d.day()), d.clicks()))
+                .toList();
+
+        return new AnalyticsOverview(
+                clicks.totalClicks(),
+                breakdown.size(),
+                topUrl,  // Can be null, that's ok
+                dailyClicks,
+                shareOf(clicks.perDevice()),
+                shareOf(clicks.perReferrer()),
+                breakdown,
+                audienceOf(sketchRepo.find(AnalyticsSketchRepo.Scope.USER, userId),
+                        breakdown.stream().collect(Collectors.toMap(UrlClicks::id, Function.identity())))
+        );
+    }
 
-        long refTotal = devices.stream().mapToLong(r -> (Long) r[1]).sum();
-        if(refTotal > 0) {  // Only process if there's data
-            for(Object[] row : devices){
-                Map<String, Object> m = new HashMap<>();
-                m.put("name", (String) row[0]);
-                m.put("percentage", Math.round(((Long) row[1]) * 100.0 / refTotal));
-                deviceStats.add(m);
+    // Links are reported with their estimated clicks; links deleted since are left out
+    private AudienceStats audienceOf(ClickSketch sketch, Map<Long, UrlClicks> urls) {
+        if (sketch == null) {
+            return AudienceStats.EMPTY;
+        }
+        List<UrlClicks> topLinks = new ArrayList<>();
+        for (NameCount link : sketch.links().top(TOP)) {
+            UrlClicks url = urls.get(Long.parseLong(link.name()));
+            if (url != null) {
+                topLinks.add(url.withClickCount(link.clicks()));
             }
         }
-
-        List<Map<String,Object>> breakdown = new ArrayList<>();
-        for(Url u : urls){
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", u.getId());
-            m.put("shortCode", u.getShortCode());
-            m.put("longUrl", u.getLongUrl());
-            m.put("clickCount", u.getClickCount() != null ? u.getClickCount() : 0);
-            breakdown.add(m);
+        TDigest clickTimes = sketch.clickTimes();
+        List<ClickTimeQuantile> quantiles = new ArrayList<>(CLICK_TIME_PERCENTILES.length);
+        if (clickTimes.count() > 0) {
+            for (int percentile : CLICK_TIME_PERCENTILES) {
+                int second = (int) Math.round(clickTimes.quantile(percentile / 100.0));
+                quantiles.add(new ClickTimeQuantile(percentile, LocalTime.ofSecondOfDay(Math.min(second, 86_399))));
+            }
         }
+        return new AudienceStats(sketch.visitors().estimate(), sketch.referrers().top(TOP), topLinks, quantiles);
+    }
 
-        Map<String,Object> response = new HashMap<>();
-        response.put("totalClicks", totalClicks);
-        response.put("totalUrls", totalUrls);
-        response.put("topUrl", topUrls);  // Can be null, that's ok
-        response.put("dailyClicks", dailyClicks);
-        response.put("devices", deviceStats);  // ✓ IMPORTANT: deviceStats not devices
-        response.put("referrers", deviceStats);  // referrers is also deviceStats
-        response.put("breakdown", breakdown);
+    private List<UrlClicks> urlClicks(long userId) {
+        return overviewRepo.urlClicks(userId).stream()
+                .map(u -> u.withClickCount(clickCounterStore.withPending(u.id(), u.clickCount())))
+                .toList();
+    }
 
-        return ResponseEntity.ok(response);
+    private List<ClickShare> shareOf(List<NameCount> counts) {
+        long total = counts.stream().mapToLong(NameCount::clicks).sum();
+        if (total == 0) {
+            return List.of();
+        }
+        return counts.stream()
+                .map(c -> new ClickShare(c.name(), Math.round(c.clicks() * 100.0 / total)))
+                .toList();
     }
 }
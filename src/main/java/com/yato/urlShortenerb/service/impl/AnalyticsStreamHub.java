@@ -0,0 +1,305 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.dto.AnalyticsDelta;
+import com.yato.urlShortenerb.dto.AnalyticsSnapshot;
+import com.yato.urlShortenerb.dto.DayCount;
+import com.yato.urlShortenerb.dto.NameCount;
+import com.yato.urlShortenerb.dto.UrlClickDelta;
+import com.yato.urlShortenerb.entity.DeviceClass;
+import com.yato.urlShortenerb.repo.AnalyticsOverviewRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pushes dashboard analytics over server-sent events: one snapshot when a
+ * client connects, then a delta of clicks per url, day and device every
+ * {@code app.analytics.stream.flush-interval} for as long as it stays
+ * connected. A click costs one map increment, and only while someone is
+ * watching; each flush resolves url owners once and sends one delta per
+ * watching client, however many clicks it covers.
+ * <p>
+ * With a shared cache, nodes that have watchers say so in a heartbeat key
+ * and every node then broadcasts its flushed clicks, so a stream also sees
+ * clicks served by other replicas. Deltas are best effort: clicks between
+ * the snapshot query and the subscription are missed until the client
+ * reconnects, which every stream does after {@code app.analytics.stream.timeout}.
+ */
+@Slf4j
+@Component
+public class AnalyticsStreamHub {
+
+    private static final String WATCHED_KEY = "analytics-stream:watched";
+
+    private record ClickKey(long urlId, LocalDate day, DeviceClass device) {}
+
+    private record Subscriber(long userId, SseEmitter emitter, AtomicBoolean open) {}
+
+    private final AnalyticsOverviewRepo overviewRepo;
+    private final SharedCacheTier sharedCache;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final int maxTrackedUrls;
+    private final Duration heartbeatInterval;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Map<ClickKey, long[]> pending = new HashMap<>();
+    private Map<ClickKey, long[]> remotePending = new HashMap<>();
+    // url id -> owning user, 0 for urls that no longer exist; only touched by flush()
+    private final LongLongHashMap urlOwners = new LongLongHashMap(1024, -1);
+
+    private volatile boolean clusterWatched;
+
+    public AnalyticsStreamHub(
+            AnalyticsOverviewRepo overviewRepo,
+            SharedCacheTier sharedCache,
+            @Value("${app.analytics.stream.timeout:15m}") Duration timeout,
+            @Value("${app.analytics.stream.max-subscribers:1000}") int maxSubscribers,
+            @Value("${app.analytics.stream.max-tracked-urls:100000}") int maxTrackedUrls,
+            @Value("${app.analytics.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.overviewRepo = overviewRepo;
+        this.sharedCache = sharedCache;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        this.maxTrackedUrls = maxTrackedUrls;
+        this.heartbeatInterval = heartbeatInterval;
+        sharedCache.subscribe(SharedCacheTier.Topic.ANALYTICS_CLICKS, this::received);
+    }
+
+    /**
+     * Sends {@code snapshot} on a new stream and subscribes it to the user's
+     * deltas. Returns null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(long userId, Supplier<AnalyticsSnapshot> snapshot) throws IOException {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeout.toMillis()), new AtomicBoolean(true));
+        try {
+            subscriber.emitter().send(SseEmitter.event().name("snapshot").data(snapshot.get()));
+        } catch (IOException | RuntimeException e) {
+            subscriberCount.decrementAndGet();
+            throw e;
+        }
+        subscriber.emitter().onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter().onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter().onError(e -> unsubscribe(subscriber));
+        subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return subscriber.emitter();
+    }
+
+    /** Counts a click that is included in click totals. */
+    public void recordClick(long urlId, LocalDateTime timestamp, DeviceClass device) {
+        if (subscriberCount.get() == 0 && !clusterWatched) {
+            return;
+        }
+        ClickKey key = new ClickKey(urlId, timestamp.toLocalDate(), device);
+        pendingLock.lock();
+        try {
+            pending.computeIfAbsent(key, k -> new long[1])[0]++;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.stream.flush-interval:1s}")
+    public void flush() {
+        Map<ClickKey, long[]> local;
+        Map<ClickKey, long[]> remote;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty() && remotePending.isEmpty()) {
+                return;
+            }
+            local = pending;
+            remote = remotePending;
+            pending = new HashMap<>();
+            remotePending = new HashMap<>();
+        } finally {
+            pendingLock.unlock();
+        }
+
+        if (!local.isEmpty() && clusterWatched) {
+            sharedCache.publish(SharedCacheTier.Topic.ANALYTICS_CLICKS, encode(local));
+        }
+        if (subscriberCount.get() == 0) {
+            return;
+        }
+        remote.forEach((key, count) -> local.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+        try {
+            deliver(local);
+        } catch (RuntimeException e) {
+            log.warn("Could not deliver {} analytics deltas", local.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        if (sharedCache.enabled()) {
+            if (subscriberCount.get() > 0) {
+                sharedCache.put(WATCHED_KEY, Boolean.TRUE, heartbeatInterval.multipliedBy(3));
+            }
+            clusterWatched = sharedCache.get(WATCHED_KEY, Boolean.class) != null;
+        }
+        // Keeps proxies from closing idle streams
+        subscribers.values().forEach(list -> list.forEach(s -> send(s, SseEmitter.event().comment("keepalive"))));
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void deliver(Map<ClickKey, long[]> clicks) {
+        resolveOwners(clicks);
+        Map<Long, DeltaBuilder> deltas = new HashMap<>();
+        clicks.forEach((key, count) -> {
+            long owner = urlOwners.get(key.urlId());
+            if (owner > 0 && subscribers.containsKey(owner)) {
+                deltas.computeIfAbsent(owner, id -> new DeltaBuilder()).add(key, count[0]);
+            }
+        });
+        deltas.forEach((userId, builder) -> {
+            AnalyticsDelta delta = builder.build();
+            List<Subscriber> watching = subscribers.get(userId);
+            if (watching != null) {
+                watching.forEach(s -> send(s, SseEmitter.event().name("delta").data(delta)));
+            }
+        });
+    }
+
+    private void resolveOwners(Map<ClickKey, long[]> clicks) {
+        Set<Long> unknown = new HashSet<>();
+        for (ClickKey key : clicks.keySet()) {
+            if (!urlOwners.containsKey(key.urlId())) {
+                unknown.add(key.urlId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        if (urlOwners.size() + unknown.size() > maxTrackedUrls) {
+            urlOwners.clear();
+        }
+        LongLongHashMap found = overviewRepo.owners(unknown.toArray(Long[]::new));
+        for (long urlId : unknown) {
+            urlOwners.put(urlId, found.get(urlId));
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.open().get()) {
+            return;
+        }
+        try {
+            subscriber.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Analytics stream of user {} closed", subscriber.userId(), e);
+            unsubscribe(subscriber);
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.open().compareAndSet(true, false)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId(), (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private void received(String message) {
+        if (subscriberCount.get() == 0) {
+            return;
+        }
+        Map<ClickKey, long[]> clicks;
+        try {
+            clicks = decode(message);
+        } catch (RuntimeException e) {
+            log.debug("Ignoring malformed analytics broadcast", e);
+            return;
+        }
+        pendingLock.lock();
+        try {
+            clicks.forEach((key, count) -> remotePending.computeIfAbsent(key, k -> new long[1])[0] += count[0]);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    // url:epochDay:deviceCode:clicks, comma separated
+    private static String encode(Map<ClickKey, long[]> clicks) {
+        StringBuilder message = new StringBuilder(clicks.size() * 24);
+        clicks.forEach((key, count) -> {
+            if (!message.isEmpty()) {
+                message.append(',');
+            }
+            message.append(key.urlId()).append(':').append(key.day().toEpochDay())
+                    .append(':').append(key.device().code()).append(':').append(count[0]);
+        });
+        return message.toString();
+    }
+
+    private static Map<ClickKey, long[]> decode(String message) {
+        Map<ClickKey, long[]> clicks = new HashMap<>();
+        for (String entry : message.split(",")) {
+            String[] parts = entry.split(":");
+            ClickKey key = new ClickKey(Long.parseLong(parts[0]), LocalDate.ofEpochDay(Long.parseLong(parts[1])),
+                    DeviceClass.fromCode(Integer.parseInt(parts[2])));
+            clicks.computeIfAbsent(key, k -> new long[1])[0] += Long.parseLong(parts[3]);
+        }
+        return clicks;
+    }
+
+    private static final class DeltaBuilder {
+        private long total;
+        private final Map<Long, Long> urls = new TreeMap<>();
+        private final Map<LocalDate, Long> days = new TreeMap<>();
+        private final Map<DeviceClass, Long> devices = new EnumMap<>(DeviceClass.class);
+
+        void add(ClickKey key, long clicks) {
+            total += clicks;
+            urls.merge(key.urlId(), clicks, Long::sum);
+            days.merge(key.day(), clicks, Long::sum);
+            devices.merge(key.device(), clicks, Long::sum);
+        }
+
+        AnalyticsDelta build() {
+            List<UrlClickDelta> perUrl = new ArrayList<>(urls.size());
+            urls.forEach((id, clicks) -> perUrl.add(new UrlClickDelta(id, clicks)));
+            List<DayCount> perDay = new ArrayList<>(days.size());
+            days.forEach((day, clicks) -> perDay.add(new DayCount(day, clicks)));
+            // Named like the rollup's device_class so clients can add them to the snapshot
+            List<NameCount> perDevice = new ArrayList<>(devices.size());
+            devices.forEach((device, clicks) -> perDevice.add(new NameCount(device.name(), clicks)));
+            return new AnalyticsDelta(total, perUrl, perDay, perDevice);
+        }
+    }
+}
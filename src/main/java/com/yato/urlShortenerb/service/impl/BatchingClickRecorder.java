@@ -0,0 +1,187 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.ClickRecorderStats;
+import com.yato.urlShortenerb.repo.ClickEventBatchRepo;
+import com.yato.urlShortenerb.service.ClickRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers clicks in a bounded queue and lets a single writer thread persist
+ * them in JDBC batches, so redirects never wait on the database.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.clicks.recorder", havingValue = "queue", matchIfMissing = true)
+public class BatchingClickRecorder implements ClickRecorder, SmartLifecycle {
+
+    public enum OverflowPolicy { DROP, BLOCK, CALLER_RUNS }
+
+    // Stop only after the web server has finished its graceful shutdown.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ClickEventBatchRepo batchRepo;
+    private final ClickSketchAggregator sketches;
+    private final BackgroundThreads backgroundThreads;
+    private final BlockingQueue<ClickEvent> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final Duration shutdownTimeout;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public BatchingClickRecorder(
+            ClickEventBatchRepo batchRepo,
+            ClickSketchAggregator sketches,
+            BackgroundThreads backgroundThreads,
+            @Value("${app.clicks.queue-capacity:50000}") int queueCapacity,
+            @Value("${app.clicks.batch-size:500}") int batchSize,
+            @Value("${app.clicks.flush-interval:200ms}") Duration flushInterval,
+            @Value("${app.clicks.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${app.clicks.block-timeout:50ms}") Duration blockTimeout,
+            @Value("${app.clicks.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.batchRepo = batchRepo;
+        this.sketches = sketches;
+        this.backgroundThreads = backgroundThreads;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void record(ClickEvent event) {
+        if (!running) {
+            write(List.of(event));
+            return;
+        }
+
+        boolean accepted = switch (overflowPolicy) {
+            case DROP, CALLER_RUNS -> queue.offer(event);
+            case BLOCK -> offerWithTimeout(event);
+        };
+
+        if (accepted) {
+            enqueued.increment();
+        } else if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+            write(List.of(event));
+        } else {
+            dropped.increment();
+            log.debug("Click queue full, dropped click for url {}", event.urlId());
+        }
+    }
+
+    private boolean offerWithTimeout(ClickEvent event) {
+        try {
+            return queue.offer(event, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public ClickRecorderStats stats() {
+        return new ClickRecorderStats(enqueued.sum(), dropped.sum(), written.sum(), failed.sum(), queue.size());
+    }
+
+    private void drainLoop() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    ClickEvent next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        log.info("Click writer drained and stopped");
+    }
+
+    private void write(List<ClickEvent> batch) {
+        try {
+            batchRepo.saveAll(batch);
+            written.add(batch.size());
+            sketches.record(batch);
+        } catch (DataAccessException e) {
+            log.warn("Batch of {} clicks failed, retrying individually", batch.size(), e);
+            for (ClickEvent event : batch) {
+                try {
+                    batchRepo.saveAll(List.of(event));
+                    written.increment();
+                    sketches.record(List.of(event));
+                } catch (DataAccessException ex) {
+                    failed.increment();
+                    log.error("Failed to record click for url {}", event.urlId(), ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = backgroundThreads.start("click-writer", this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Click writer did not drain within {}, {} clicks pending", shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,103 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.service.ShortCodeAllocator;
+import com.yato.urlShortenerb.util.Base62;
+import com.yato.urlShortenerb.util.CodeScrambler;
+import com.yato.urlShortenerb.util.ShortCodeGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out codes from a block of counter values leased from
+ * short_code_range_seq, so each node allocates without per-create queries.
+ * The sequence increments by the block size and each value starts a range,
+ * so startup fails if app.shortcode.block-size differs from the increment.
+ * The scramble key must stay the same across nodes and restarts.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.shortcode.mode", havingValue = "counter")
+public class BlockLeasedShortCodeAllocator implements ShortCodeAllocator {
+
+    private static final int WIDTH = ShortCodeGenerator.DEFAULT_LENGTH;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long blockSize;
+    private final long keyspace = Base62.keyspace(WIDTH);
+    private final CodeScrambler scrambler;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long next;
+    private long limit;
+
+    public BlockLeasedShortCodeAllocator(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.shortcode.block-size:1000}") long blockSize,
+            @Value("${app.shortcode.scramble:true}") boolean scramble,
+            @Value("${app.shortcode.scramble-key:0}") long scrambleKey) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+        this.scrambler = scramble ? new CodeScrambler(keyspace, scrambleKey) : null;
+    }
+
+    // A node leasing ranges of another size would hand out codes another node already has
+    @PostConstruct
+    void checkBlockSize() {
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = 'short_code_range_seq'",
+                Long.class);
+        if (increment == null || increment != blockSize) {
+            throw new IllegalStateException("app.shortcode.block-size is " + blockSize + " but short_code_range_seq increments by "
+                    + increment + "; run ALTER SEQUENCE short_code_range_seq INCREMENT BY " + blockSize
+                    + " while no node is allocating, or change the setting back");
+        }
+    }
+
+    @Override
+    public String next() {
+        lock.lock();
+        try {
+            return encode(take());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> next(int count) {
+        List<String> codes = new ArrayList<>(count);
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                codes.add(encode(take()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return codes;
+    }
+
+    private long take() {
+        if (next >= limit) {
+            next = jdbcTemplate.queryForObject("SELECT nextval('short_code_range_seq')", Long.class);
+            limit = next + blockSize;
+            if (limit > keyspace) {
+                throw new IllegalStateException("Short code keyspace exhausted");
+            }
+            log.debug("Leased short code block [{}, {})", next, limit);
+        }
+        return next++;
+    }
+
+    private String encode(long counter) {
+        return Base62.encode(scrambler != null ? scrambler.scramble(counter) : counter, WIDTH);
+    }
+}
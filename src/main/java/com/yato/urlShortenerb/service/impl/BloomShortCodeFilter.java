@@ -0,0 +1,203 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.BloomFilter;
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.dto.BloomFilterStats;
+import com.yato.urlShortenerb.repo.UrlRepo;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Negative lookup guard for short codes. Until the first build completes every
+ * code is reported as possibly existing. Bloom filters cannot forget, so
+ * deletes only mark the filter stale and a scheduled rebuild replaces it.
+ * Codes created on other replicas arrive through the shared cache when there
+ * is one, and every node also adds the urls created since its last look
+ * every {@code app.bloom.catch-up-interval}, so they are found without it.
+ */
+@Slf4j
+@Service
+public class BloomShortCodeFilter implements ShortCodeFilter {
+
+    private final UrlRepo urlRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final BackgroundThreads backgroundThreads;
+    private final SharedCacheTier sharedCache;
+    private final boolean enabled;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration catchUpLookback;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong pendingDeletes = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile BloomFilter active;
+    private volatile BloomFilter building;
+    private LocalDateTime caughtUpTo;
+
+    public BloomShortCodeFilter(
+            UrlRepo urlRepo,
+            TransactionTemplate transactionTemplate,
+            BackgroundThreads backgroundThreads,
+            SharedCacheTier sharedCache,
+            @Value("${app.bloom.enabled:true}") boolean enabled,
+            @Value("${app.bloom.expected-insertions:1000000}") long minExpectedInsertions,
+            @Value("${app.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.bloom.catch-up-lookback:1m}") Duration catchUpLookback) {
+        this.urlRepo = urlRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.backgroundThreads = backgroundThreads;
+        this.sharedCache = sharedCache;
+        this.enabled = enabled;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.catchUpLookback = catchUpLookback;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            // Codes created on other replicas would otherwise be rejected here until the next rebuild
+            sharedCache.subscribe(SharedCacheTier.Topic.SHORT_CODE_ADDED, this::addLocal);
+            backgroundThreads.start("bloom-build", this::rebuild);
+        }
+    }
+
+    @Override
+    public boolean mightExist(String shortCode) {
+        BloomFilter filter = active;
+        if (filter == null || filter.mightContain(shortCode)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    @Override
+    public void added(String shortCode) {
+        addLocal(shortCode);
+        if (enabled) {
+            sharedCache.publish(SharedCacheTier.Topic.SHORT_CODE_ADDED, shortCode);
+        }
+    }
+
+    private void addLocal(String shortCode) {
+        BloomFilter filter = active;
+        if (filter != null) {
+            filter.add(shortCode);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.add(shortCode);
+        }
+    }
+
+    @Override
+    public void removed(String shortCode) {
+        pendingDeletes.incrementAndGet();
+    }
+
+    @Override
+    public void recordFalsePositive(String shortCode) {
+        falsePositives.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.bloom.rebuild-check-interval:5m}")
+    public void rebuildIfStale() {
+        BloomFilter filter = active;
+        if (!enabled || filter == null) {
+            return;
+        }
+        if (pendingDeletes.get() > 0 || filter.expectedFalsePositiveRate() > falsePositiveRate * 2) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.bloom.catch-up-interval:5s}")
+    public void catchUp() {
+        BloomFilter filter = active;
+        if (!enabled || filter == null || !rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            // Creation times come from each node's clock and rows commit a while after them, so look back
+            LocalDateTime since = caughtUpTo.minus(catchUpLookback);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> codes = urlRepo.streamShortCodesCreatedAfter(since)) {
+                    codes.forEach(filter::add);
+                }
+            });
+            caughtUpTo = now;
+        } catch (RuntimeException e) {
+            log.warn("Short code Bloom filter catch-up failed", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            long deletesBefore = pendingDeletes.get();
+            long count = urlRepo.count();
+            LocalDateTime startedAt = LocalDateTime.now();
+            BloomFilter next = new BloomFilter(Math.max(minExpectedInsertions, count * 2), falsePositiveRate);
+            building = next;
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> codes = urlRepo.streamAllShortCodes()) {
+                    codes.forEach(next::add);
+                }
+            });
+
+            active = next;
+            caughtUpTo = startedAt;
+            pendingDeletes.addAndGet(-deletesBefore);
+            log.info("Short code Bloom filter built: {} codes, {} KiB, expected fpp {}",
+                    next.insertions(), next.memoryBytes() / 1024, next.expectedFalsePositiveRate());
+        } catch (RuntimeException e) {
+            log.error("Short code Bloom filter build failed", e);
+        } finally {
+            building = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public BloomFilterStats stats() {
+        BloomFilter filter = active;
+        if (filter == null) {
+            return new BloomFilterStats(false, 0, 0, 0, 0, 0, rejected.sum(), falsePositives.sum(), pendingDeletes.get());
+        }
+        return new BloomFilterStats(
+                true,
+                filter.bits(),
+                filter.hashes(),
+                filter.insertions(),
+                filter.memoryBytes(),
+                filter.expectedFalsePositiveRate(),
+                rejected.sum(),
+                falsePositives.sum(),
+                pendingDeletes.get()
+        );
+    }
+}
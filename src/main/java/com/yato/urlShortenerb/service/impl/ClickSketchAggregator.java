@@ -0,0 +1,145 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.ClickSketch;
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.repo.AnalyticsOverviewRepo;
+import com.yato.urlShortenerb.repo.AnalyticsSketchRepo;
+import com.yato.urlShortenerb.service.UserAgentClassifier;
+import com.yato.urlShortenerb.util.ClickClassifier;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Folds persisted clicks into per-url sketches in memory and merges them into
+ * the stored url and user sketches every {@code app.analytics.sketch.flush-interval}.
+ * Recording is called by the click writers after a batch is saved, so the
+ * sketches count the same clicks as the rollups. A flush that fails is kept
+ * and merged again by the next one; clicks of urls beyond
+ * {@code app.analytics.sketch.max-pending-urls} are left out until then.
+ */
+@Slf4j
+@Component
+public class ClickSketchAggregator {
+
+    private final AnalyticsSketchRepo sketchRepo;
+    private final AnalyticsOverviewRepo overviewRepo;
+    private final UserAgentClassifier userAgentClassifier;
+    private final int maxPendingUrls;
+
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Map<Long, ClickSketch> pending = new HashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public ClickSketchAggregator(
+            AnalyticsSketchRepo sketchRepo,
+            AnalyticsOverviewRepo overviewRepo,
+            UserAgentClassifier userAgentClassifier,
+            @Value("${app.analytics.sketch.max-pending-urls:100000}") int maxPendingUrls) {
+        this.sketchRepo = sketchRepo;
+        this.overviewRepo = overviewRepo;
+        this.userAgentClassifier = userAgentClassifier;
+        this.maxPendingUrls = maxPendingUrls;
+    }
+
+    /** Adds clicks that have been saved; clicks left out of rollups are skipped here too. */
+    public void record(List<ClickEvent> events) {
+        pendingLock.lock();
+        try {
+            for (ClickEvent event : events) {
+                if (!userAgentClassifier.isCounted(event.agent())) {
+                    continue;
+                }
+                ClickSketch sketch = pending.get(event.urlId());
+                if (sketch == null) {
+                    if (pending.size() >= maxPendingUrls) {
+                        dropped.increment();
+                        continue;
+                    }
+                    sketch = new ClickSketch();
+                    pending.put(event.urlId(), sketch);
+                }
+                sketch.add(event.visitorHash(), ClickClassifier.referrerHost(event.referrer()),
+                        event.timestamp().toLocalTime().toSecondOfDay());
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.sketch.flush-interval:1m}")
+    public void flush() {
+        Map<Long, ClickSketch> batch;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        } finally {
+            pendingLock.unlock();
+        }
+
+        try {
+            LongLongHashMap owners = overviewRepo.owners(batch.keySet().toArray(Long[]::new));
+            SortedMap<Long, ClickSketch> urlDeltas = new TreeMap<>();
+            SortedMap<Long, ClickSketch> userDeltas = new TreeMap<>();
+            batch.forEach((urlId, delta) -> {
+                long owner = owners.get(urlId);
+                // Deleted urls have no owner to report to
+                if (owner > 0) {
+                    urlDeltas.put(urlId, delta);
+                    userDeltas.computeIfAbsent(owner, id -> new ClickSketch()).addUrl(urlId, delta);
+                }
+            });
+            sketchRepo.mergeAll(urlDeltas, userDeltas);
+        } catch (RuntimeException e) {
+            log.warn("Could not store sketches of {} urls, keeping them for the next flush", batch.size(), e);
+            restore(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int pendingUrls() {
+        pendingLock.lock();
+        try {
+            return pending.size();
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void restore(Map<Long, ClickSketch> batch) {
+        pendingLock.lock();
+        try {
+            batch.forEach((urlId, delta) -> {
+                ClickSketch current = pending.putIfAbsent(urlId, delta);
+                if (current != null) {
+                    current.merge(delta);
+                }
+            });
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.SegmentedLog;
+import com.yato.urlShortenerb.cache.SegmentedLog.Position;
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.ClickRecorderStats;
+import com.yato.urlShortenerb.repo.ClickEventBatchRepo;
+import com.yato.urlShortenerb.service.ClickRecorder;
+import com.yato.urlShortenerb.util.ClickEventCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends clicks to a local {@link SegmentedLog} and lets a shipper thread
+ * replay it into analytics_event in large batches, so redirects never wait
+ * on the database and clicks survive both database outages and restarts.
+ * Appends are fsynced together every {@code app.clicks.log.fsync-interval}.
+ * The shipper commits its position after each batch; while the database is
+ * unreachable it retries the same batch with backoff and the log grows up to
+ * {@code app.clicks.log.max-size}. Delivery is at least once: a crash between
+ * a batch commit and its checkpoint replays that batch.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.clicks.recorder", havingValue = "log")
+public class EventLogClickRecorder implements ClickRecorder, SmartLifecycle {
+
+    // Stop only after the web server has finished its graceful shutdown.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ClickEventBatchRepo batchRepo;
+    private final ClickSketchAggregator sketches;
+    private final BackgroundThreads backgroundThreads;
+    private final Path dir;
+    private final DataSize segmentSize;
+    private final DataSize maxSize;
+    private final Duration fsyncInterval;
+    private final int batchSize;
+    private final Duration shipInterval;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration shutdownTimeout;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile SegmentedLog eventLog;
+    private volatile boolean running;
+    private Thread syncer;
+    private Thread shipper;
+
+    public EventLogClickRecorder(
+            ClickEventBatchRepo batchRepo,
+            ClickSketchAggregator sketches,
+            BackgroundThreads backgroundThreads,
+            @Value("${app.clicks.log.dir:data/click-log}") Path dir,
+            @Value("${app.clicks.log.segment-size:64MB}") DataSize segmentSize,
+            @Value("${app.clicks.log.max-size:2GB}") DataSize maxSize,
+            @Value("${app.clicks.log.fsync-interval:50ms}") Duration fsyncInterval,
+            @Value("${app.clicks.log.ship-batch-size:5000}") int batchSize,
+            @Value("${app.clicks.log.ship-interval:500ms}") Duration shipInterval,
+            @Value("${app.clicks.log.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${app.clicks.log.max-retry-backoff:30s}") Duration maxRetryBackoff,
+            @Value("${app.clicks.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.batchRepo = batchRepo;
+        this.sketches = sketches;
+        this.backgroundThreads = backgroundThreads;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.fsyncInterval = fsyncInterval;
+        this.batchSize = batchSize;
+        this.shipInterval = shipInterval;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void record(ClickEvent event) {
+        SegmentedLog current = eventLog;
+        if (!running || current == null) {
+            if (!ship(List.of(event))) {
+                failed.increment();
+            }
+            return;
+        }
+        try {
+            if (current.append(ClickEventCodec.encode(event))) {
+                enqueued.increment();
+                return;
+            }
+            log.debug("Click log full, dropped click for url {}", event.urlId());
+        } catch (IOException e) {
+            log.debug("Click log append failed, dropped click for url {}", event.urlId(), e);
+        }
+        dropped.increment();
+    }
+
+    @Override
+    public ClickRecorderStats stats() {
+        // Backlog carried over from before a restart is shipped but was never enqueued here
+        long pending = Math.max(0, enqueued.sum() - written.sum() - failed.sum());
+        return new ClickRecorderStats(enqueued.sum(), dropped.sum(), written.sum(), failed.sum(),
+                (int) Math.min(Integer.MAX_VALUE, pending));
+    }
+
+    /** Bytes of clicks on disk that the shipper has not committed past. */
+    public long logBytes() {
+        SegmentedLog current = eventLog;
+        return current == null ? 0 : current.sizeBytes();
+    }
+
+    private void syncLoop() {
+        SegmentedLog target = eventLog;
+        while (running) {
+            if (!sleep(fsyncInterval)) {
+                break;
+            }
+            try {
+                target.sync();
+            } catch (IOException e) {
+                log.warn("Could not fsync the click log", e);
+            }
+        }
+    }
+
+    private void shipLoop() {
+        SegmentedLog source = eventLog;
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        Position position = source.committed();
+        Duration backoff = retryBackoff;
+        while (true) {
+            Position next;
+            try {
+                next = source.read(position, batchSize, payload -> decode(payload, batch));
+            } catch (IOException e) {
+                log.error("Could not read the click log at {}", position, e);
+                batch.clear();
+                if (!running || !sleep(maxRetryBackoff)) {
+                    break;
+                }
+                continue;
+            }
+
+            if (!batch.isEmpty() && !ship(batch)) {
+                batch.clear();
+                // Unshipped clicks stay on disk for the next start
+                if (!running || !sleep(backoff)) {
+                    break;
+                }
+                Duration doubled = backoff.multipliedBy(2);
+                backoff = doubled.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : doubled;
+                continue;
+            }
+            backoff = retryBackoff;
+            boolean caughtUp = batch.size() < batchSize;
+            batch.clear();
+
+            if (!next.equals(position)) {
+                position = next;
+                try {
+                    source.commit(next);
+                } catch (IOException e) {
+                    // Shipped clicks are replayed from the previous checkpoint if the node restarts now
+                    log.error("Could not checkpoint the click log at {}", next, e);
+                }
+            }
+            if (caughtUp && (!running || !sleep(shipInterval))) {
+                break;
+            }
+        }
+        log.info("Click log shipper stopped at {}", position);
+    }
+
+    private void decode(ByteBuffer payload, List<ClickEvent> batch) {
+        try {
+            batch.add(ClickEventCodec.decode(payload));
+        } catch (IllegalArgumentException e) {
+            failed.increment();
+            log.error("Skipping unreadable click record", e);
+        }
+    }
+
+    // Returns false when the database is unreachable and the clicks should be retried later
+    private boolean ship(List<ClickEvent> batch) {
+        try {
+            batchRepo.saveAll(batch);
+            written.add(batch.size());
+            sketches.record(batch);
+            return true;
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                log.warn("Database unavailable, {} clicks kept for retry: {}", batch.size(), e.toString());
+                return false;
+            }
+            if (batch.size() == 1) {
+                failed.increment();
+                log.error("Failed to record click for url {}", batch.getFirst().urlId(), e);
+                return true;
+            }
+            log.warn("Batch of {} clicks failed, retrying individually", batch.size(), e);
+        }
+        for (ClickEvent event : batch) {
+            try {
+                batchRepo.saveAll(List.of(event));
+                written.increment();
+                sketches.record(List.of(event));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    return false;
+                }
+                failed.increment();
+                log.error("Failed to record click for url {}", event.urlId(), e);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            eventLog = SegmentedLog.open(dir, segmentSize.toBytes(), maxSize.toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the click log in " + dir, e);
+        }
+        log.info("Opened click log in {}: {} KiB waiting to be shipped", dir, eventLog.sizeBytes() >> 10);
+        running = true;
+        syncer = backgroundThreads.start("click-log-sync", this::syncLoop);
+        shipper = backgroundThreads.start("click-log-shipper", this::shipLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            syncer.join(fsyncInterval.toMillis() * 2);
+            shipper.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (shipper.isAlive()) {
+            log.warn("Click log shipper did not finish within {}", shutdownTimeout);
+            shipper.interrupt();
+        }
+        SegmentedLog current = eventLog;
+        eventLog = null;
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("Could not close the click log cleanly", e);
+        }
+        log.info("Click log closed, {} KiB left to ship on the next start", current.sizeBytes() >> 10);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,71 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.dto.PurgedUrl;
+import com.yato.urlShortenerb.repo.ExpiredUrlRepo;
+import com.yato.urlShortenerb.service.ClickCounterStore;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import com.yato.urlShortenerb.service.ShortCodeResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Removes urls whose expiry passed more than the grace period ago, together
+ * with their click events and rollups, in small chunks. In ARCHIVE mode the
+ * url rows and rollups are copied to the *_archive tables first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.expiry.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredUrlPurgeJob {
+
+    public enum Mode { ARCHIVE, DELETE }
+
+    private final ExpiredUrlRepo expiredUrlRepo;
+    private final ShortCodeResolver shortCodeResolver;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ClickCounterStore clickCounterStore;
+
+    @Value("${app.expiry.purge.mode:ARCHIVE}")
+    private Mode mode;
+
+    @Value("${app.expiry.purge.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.expiry.purge.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    @Value("${app.expiry.purge.grace:1d}")
+    private Duration grace;
+
+    @Scheduled(fixedDelayString = "${app.expiry.purge.interval:10m}", initialDelayString = "${app.expiry.purge.initial-delay:1m}")
+    public void run() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        int purged = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<PurgedUrl> urls = mode == Mode.ARCHIVE
+                    ? expiredUrlRepo.archiveChunk(cutoff, chunkSize)
+                    : expiredUrlRepo.deleteChunk(cutoff, chunkSize);
+            for (PurgedUrl url : urls) {
+                shortCodeResolver.invalidate(url.shortCode());
+                shortCodeFilter.removed(url.shortCode());
+                clickCounterStore.forget(url.id());
+            }
+            purged += urls.size();
+            if (urls.size() < chunkSize) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired urls ({})", purged, mode);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.TimingWheel;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.util.ShortCodeCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Evicts short codes from the in-process cache at their expiry instead of
+ * leaving them until the cache TTL runs out.
+ */
+@Slf4j
+@Component
+public class ExpiryEvictionScheduler {
+
+    private final BoundedTtlCache<String, ResolvedUrl> shortCodeCache;
+    private final TimingWheel wheel;
+
+    public ExpiryEvictionScheduler(
+            BoundedTtlCache<String, ResolvedUrl> shortCodeCache,
+            @Value("${app.expiry.tick:1s}") Duration tick,
+            @Value("${app.expiry.wheel-size:64}") int wheelSize,
+            @Value("${app.expiry.wheel-levels:4}") int levels) {
+        this.shortCodeCache = shortCodeCache;
+        this.wheel = new TimingWheel(tick, wheelSize, levels, System.currentTimeMillis());
+    }
+
+    /** Links that are already expired are not scheduled; they stay cached so repeated hits are answered 410 without a query. */
+    public void schedule(String shortCode, LocalDateTime expiry) {
+        long key = ShortCodeCodec.pack(shortCode);
+        // Codes that do not pack are left to the cache TTL
+        if (expiry != null && key != ShortCodeCodec.NONE) {
+            wheel.schedule(key, expiry.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    public void cancel(String shortCode) {
+        long key = ShortCodeCodec.pack(shortCode);
+        if (key != ShortCodeCodec.NONE) {
+            wheel.cancel(key);
+        }
+    }
+
+    public int pending() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedRateString = "${app.expiry.tick:1s}")
+    public void tick() {
+        long[] expired = wheel.advance(System.currentTimeMillis());
+        if (expired.length == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (long key : expired) {
+            String shortCode = ShortCodeCodec.unpack(key);
+            // The code may have been updated or reloaded since it was scheduled
+            shortCodeCache.invalidateIf(shortCode, url -> url.expiry() != null && !url.expiry().isAfter(now));
+        }
+        log.debug("Evicted {} expired short codes", expired.length);
+    }
+}
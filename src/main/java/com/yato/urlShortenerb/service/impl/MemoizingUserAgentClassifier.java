@@ -0,0 +1,49 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+import com.yato.urlShortenerb.repo.EventDictionaryRepo;
+import com.yato.urlShortenerb.service.UserAgentClassifier;
+import com.yato.urlShortenerb.util.UserAgentParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * A few hundred distinct agents make up most traffic, so parse results are
+ * kept in an LRU keyed by the raw header.
+ */
+@Service
+public class MemoizingUserAgentClassifier implements UserAgentClassifier {
+
+    private final BoundedTtlCache<String, UserAgentInfo> userAgentCache;
+    private final boolean excludeBots;
+
+    public MemoizingUserAgentClassifier(
+            BoundedTtlCache<String, UserAgentInfo> userAgentCache,
+            @Value("${app.analytics.exclude-bots:true}") boolean excludeBots) {
+        this.userAgentCache = userAgentCache;
+        this.excludeBots = excludeBots;
+    }
+
+    @Override
+    public UserAgentInfo classify(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UserAgentInfo.UNKNOWN;
+        }
+        // Oversized headers are parsed but not memoised so they cannot crowd out real agents
+        if (userAgent.length() > EventDictionaryRepo.MAX_LENGTH) {
+            return UserAgentParser.parse(userAgent);
+        }
+        UserAgentInfo agent = userAgentCache.get(userAgent);
+        if (agent == null) {
+            agent = UserAgentParser.parse(userAgent);
+            userAgentCache.put(userAgent, agent);
+        }
+        return agent;
+    }
+
+    @Override
+    public boolean isCounted(UserAgentInfo agent) {
+        return !(excludeBots && agent.isBot());
+    }
+}
@@ -0,0 +1,16 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.service.ShortCodeAllocator;
+import com.yato.urlShortenerb.util.ShortCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "app.shortcode.mode", havingValue = "random", matchIfMissing = true)
+public class RandomShortCodeAllocator implements ShortCodeAllocator {
+
+    @Override
+    public String next() {
+        return ShortCodeGenerator.generate();
+    }
+}
@@ -0,0 +1,65 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.repo.ClickEventBatchRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Rebuilds analytics_daily_rollup from the raw analytics_event history that
+ * is still retained, one url id range per transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupBackfillJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClickEventBatchRepo batchRepo;
+    private final BackgroundThreads backgroundThreads;
+    private final AnalyticsPartitionMaintainer partitionMaintainer;
+
+    @Value("${app.analytics.rollup.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.analytics.rollup.backfill-chunk-size:500}")
+    private long chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (backfillOnStartup) {
+            backgroundThreads.start("rollup-backfill", this::run);
+        }
+    }
+
+    public void run() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM urls");
+        if (range.get("lo") == null) {
+            log.info("No urls to backfill rollups for");
+            return;
+        }
+        long lo = ((Number) range.get("lo")).longValue();
+        long hi = ((Number) range.get("hi")).longValue();
+        LocalDate since = partitionMaintainer.oldestRetainedDay();
+        if (since == null) {
+            log.info("No analytics_event partitions to backfill rollups from");
+            return;
+        }
+
+        log.info("Backfilling click rollups for url ids {}..{} since {}", lo, hi, since);
+        long rows = 0;
+        for (long from = lo; from <= hi; from += chunkSize) {
+            long to = Math.min(hi, from + chunkSize - 1);
+            rows += batchRepo.rebuildRollups(from, to, since);
+        }
+        log.info("Rollup backfill finished, {} rollup rows written", rows);
+    }
+}
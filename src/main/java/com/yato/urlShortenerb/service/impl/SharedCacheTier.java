@@ -0,0 +1,176 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.SharedCache;
+import com.yato.urlShortenerb.dto.SharedCacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * JSON encoding, key namespacing and fault isolation around the optional
+ * {@link SharedCache}. Every call degrades to a miss or a no-op when no
+ * shared cache is configured or it is unreachable, so a Redis outage falls
+ * back to the local caches and Postgres instead of failing requests.
+ * Broadcasts are tagged with this node's id and not delivered back to it.
+ */
+@Slf4j
+@Component
+public class SharedCacheTier {
+
+    // Not valid JSON, so it can never be a stored value
+    private static final String HOLD = "-";
+
+    public enum Topic {
+        SHORT_CODE_INVALIDATED("short-code-invalidated"),
+        SHORT_CODE_ADDED("short-code-added"),
+        ANALYTICS_CLICKS("analytics-clicks");
+
+        private final String channel;
+
+        Topic(String channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final SharedCache shared;
+    private final ObjectMapper objectMapper;
+    private final String prefix;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    public SharedCacheTier(
+            ObjectProvider<SharedCache> shared,
+            ObjectMapper objectMapper,
+            @Value("${app.cache.l2.key-prefix:urlshortener:}") String prefix) {
+        this.shared = shared.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.prefix = prefix;
+    }
+
+    public boolean enabled() {
+        return shared != null;
+    }
+
+    public <T> T get(String key, Class<T> type) {
+        if (shared == null) {
+            return null;
+        }
+        try {
+            String json = shared.get(prefix + key);
+            if (json == null || json.equals(HOLD)) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return objectMapper.readValue(json, type);
+        } catch (RuntimeException e) {
+            failed("get", key, e);
+            return null;
+        }
+    }
+
+    public void put(String key, Object value, Duration ttl) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.put(prefix + key, objectMapper.writeValueAsString(value), ttl);
+        } catch (RuntimeException e) {
+            failed("put", key, e);
+        }
+    }
+
+    /**
+     * Stores the value unless the key has one or is held by {@link #evictAndHold},
+     * for loads that may have read the database before a concurrent update.
+     */
+    public void putIfAbsent(String key, Object value, Duration ttl) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.putIfAbsent(prefix + key, objectMapper.writeValueAsString(value), ttl);
+        } catch (RuntimeException e) {
+            failed("put", key, e);
+        }
+    }
+
+    /**
+     * Replaces the entry with a marker that reads as a miss and keeps
+     * {@link #putIfAbsent} from filling the key again for {@code hold}, so a
+     * load that started before the change cannot store what it read.
+     */
+    public void evictAndHold(String key, Duration hold) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.put(prefix + key, HOLD, hold);
+        } catch (RuntimeException e) {
+            failed("evict", key, e);
+        }
+    }
+
+    public void evict(String key) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.evict(prefix + key);
+        } catch (RuntimeException e) {
+            failed("evict", key, e);
+        }
+    }
+
+    public void publish(Topic topic, String key) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.publish(prefix + topic.channel, nodeId + ' ' + key);
+        } catch (RuntimeException e) {
+            failed("publish", key, e);
+        }
+    }
+
+    /** Registers a handler for keys broadcast by other nodes. */
+    public void subscribe(Topic topic, Consumer<String> handler) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.subscribe(prefix + topic.channel, message -> {
+                int split = message.indexOf(' ');
+                if (split < 0 || message.substring(0, split).equals(nodeId)) {
+                    return;
+                }
+                received.increment();
+                handler.accept(message.substring(split + 1));
+            });
+        } catch (RuntimeException e) {
+            // Unlike a failed get or put, this lasts until the node restarts
+            errors.increment();
+            log.warn("Could not subscribe to {}, updates from other nodes will not reach this one", topic.channel, e);
+        }
+    }
+
+    public SharedCacheStats stats() {
+        return new SharedCacheStats(hits.sum(), misses.sum(), errors.sum(), received.sum());
+    }
+
+    private void failed(String operation, String key, RuntimeException e) {
+        errors.increment();
+        log.debug("Shared cache {} failed for {}", operation, key, e);
+    }
+}
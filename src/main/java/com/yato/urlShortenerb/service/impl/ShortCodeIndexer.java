@@ -0,0 +1,260 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.ShortCodeIndex;
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.repo.ShortCodeIndexRepo;
+import com.yato.urlShortenerb.util.ShortCodeCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Owns the on-disk {@link ShortCodeIndex}: opens it at startup, or rebuilds it
+ * from the urls table when it is missing, was not closed cleanly, was built
+ * from another database or has fallen behind the url_changes retention. A
+ * scheduled sync copies new urls and tombstones codes listed in url_changes,
+ * so rows updated or deleted by other nodes, or while this node was down, are
+ * never served from the index. The sync thread is also the only one that
+ * grows the index; request threads only add codes when there is room and the
+ * index is not busy. Until the index is ready every lookup misses.
+ */
+@Slf4j
+@Component
+public class ShortCodeIndexer {
+
+    private final ShortCodeIndexRepo indexRepo;
+    private final BackgroundThreads backgroundThreads;
+    private final boolean enabled;
+    private final Path dir;
+    private final int batchSize;
+    private final Duration changeLookback;
+    private final Duration changeRetention;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile ShortCodeIndex index;
+
+    public ShortCodeIndexer(
+            ShortCodeIndexRepo indexRepo,
+            BackgroundThreads backgroundThreads,
+            @Value("${app.index.enabled:true}") boolean enabled,
+            @Value("${app.index.dir:data/short-code-index}") Path dir,
+            @Value("${app.index.sync-batch-size:5000}") int batchSize,
+            @Value("${app.index.change-lookback:1m}") Duration changeLookback,
+            @Value("${app.index.change-retention:7d}") Duration changeRetention) {
+        this.indexRepo = indexRepo;
+        this.backgroundThreads = backgroundThreads;
+        this.enabled = enabled;
+        this.dir = dir;
+        this.batchSize = batchSize;
+        this.changeLookback = changeLookback;
+        this.changeRetention = changeRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            backgroundThreads.start("short-code-index", this::load);
+        }
+    }
+
+    public ResolvedUrl lookup(String shortCode) {
+        ShortCodeIndex current = index;
+        long packed = ShortCodeCodec.pack(shortCode);
+        if (current == null || packed == ShortCodeCodec.NONE) {
+            return null;
+        }
+        ResolvedUrl url = current.get(packed);
+        if (url == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return url;
+    }
+
+    public void store(String shortCode, ResolvedUrl url) {
+        ShortCodeIndex current = index;
+        long packed = ShortCodeCodec.pack(shortCode);
+        if (current == null || packed == ShortCodeCodec.NONE) {
+            return;
+        }
+        try {
+            // Best effort: the request thread never waits for a sync or a resize
+            current.tryPut(packed, url);
+        } catch (IOException e) {
+            log.warn("Could not add {} to the short code index", shortCode, e);
+        }
+    }
+
+    public void invalidate(String shortCode) {
+        ShortCodeIndex current = index;
+        long packed = ShortCodeCodec.pack(shortCode);
+        if (current != null && packed != ShortCodeCodec.NONE) {
+            current.remove(packed);
+        }
+    }
+
+    private void load() {
+        syncLock.lock();
+        try {
+            long databaseId = indexRepo.databaseId();
+            ShortCodeIndex opened = ShortCodeIndex.open(dir, databaseId);
+            // A database restored from an older backup keeps its id but not the urls the index has seen
+            if (opened != null && changeLogCovers(opened) && opened.urlWatermark() <= indexRepo.maxUrlId()) {
+                // Tombstone what changed while this node was down before serving from it
+                syncLocked(opened);
+                index = opened;
+                log.info("Opened short code index in {}: {} codes", dir, opened.size());
+                return;
+            }
+            if (opened != null) {
+                opened.close();
+            }
+            rebuildLocked(databaseId);
+        } catch (IOException | RuntimeException e) {
+            log.error("Short code index unavailable, resolving from the database only", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.index.sync-interval:5s}")
+    public void sync() {
+        if (index == null || !syncLock.tryLock()) {
+            return;
+        }
+        try {
+            syncLocked(index);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Short code index sync failed", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.index.change-purge-interval:1h}")
+    public void purgeChanges() {
+        if (enabled) {
+            indexRepo.purgeChangesBefore(indexRepo.now().minus(changeRetention));
+        }
+    }
+
+    private void syncLocked(ShortCodeIndex current) throws IOException {
+        LocalDateTime now = indexRepo.now();
+        // Re-reading the lookback window catches changes committed after a previous sync read past them
+        LocalDateTime since = fromMillis(current.changeWatermark()).minus(changeLookback);
+        indexRepo.forEachChangeSince(since, code -> {
+            long packed = ShortCodeCodec.pack(code);
+            if (packed != ShortCodeCodec.NONE) {
+                current.remove(packed);
+            }
+        });
+        current.changeWatermark(toMillis(now));
+        copyNewUrls(current);
+    }
+
+    private void rebuildLocked(long databaseId) throws IOException {
+        long started = System.nanoTime();
+        index = null;
+        LocalDateTime now = indexRepo.now();
+        ShortCodeIndex built = ShortCodeIndex.create(dir, indexRepo.countUrls(), databaseId);
+        built.changeWatermark(toMillis(now));
+        copyNewUrls(built);
+        built.force();
+        index = built;
+        log.info("Short code index built in {}: {} codes, {} MiB of urls in {} ms",
+                dir, built.size(), built.blobBytes() >> 20, Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    // Ids are not committed in order across nodes; codes this skips are added on their first database load
+    private void copyNewUrls(ShortCodeIndex target) throws IOException {
+        long after = target.urlWatermark();
+        while (true) {
+            // Also leaves room for the codes request threads add between syncs
+            if (!target.ensureCapacity(batchSize)) {
+                log.warn("Short code index is at its maximum capacity, new codes resolve from the database");
+                return;
+            }
+            long last = indexRepo.forEachUrlAfter(after, batchSize, (code, url) -> {
+                long packed = ShortCodeCodec.pack(code);
+                if (packed == ShortCodeCodec.NONE) {
+                    return;
+                }
+                try {
+                    target.put(packed, url);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (last == after) {
+                return;
+            }
+            target.urlWatermark(last);
+            after = last;
+        }
+    }
+
+    private boolean changeLogCovers(ShortCodeIndex opened) {
+        return fromMillis(opened.changeWatermark()).isAfter(indexRepo.now().minus(changeRetention));
+    }
+
+    @PreDestroy
+    public void close() {
+        syncLock.lock();
+        try {
+            ShortCodeIndex current = index;
+            index = null;
+            if (current != null) {
+                current.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close the short code index cleanly; it will be rebuilt on next start", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public int size() {
+        ShortCodeIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    public long blobBytes() {
+        ShortCodeIndex current = index;
+        return current == null ? 0 : current.blobBytes();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,64 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.config.BackgroundThreads;
+import com.yato.urlShortenerb.util.ShortCodeCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills urls.short_code_key for rows written before the column existed, one
+ * id range per statement. Rows whose code does not pack keep a null key and
+ * are looked up by text.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShortCodeKeyBackfillJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${app.shortcode.key-backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        backgroundThreads.start("short-code-key-backfill", this::run);
+    }
+
+    public void run() {
+        long after = 0;
+        long filled = 0;
+        try {
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(
+                        "SELECT id, short_code FROM urls WHERE short_code_key IS NULL AND id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                        after, chunkSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<Object[]> keys = rows.stream()
+                        .filter(row -> ShortCodeCodec.pack((String) row[1]) != ShortCodeCodec.NONE)
+                        .map(row -> new Object[]{ShortCodeCodec.pack((String) row[1]), row[0]})
+                        .toList();
+                jdbcTemplate.batchUpdate("UPDATE urls SET short_code_key = ? WHERE id = ? AND short_code_key IS NULL", keys);
+                filled += keys.size();
+                after = (long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            log.error("Short code key backfill stopped after {} rows, it resumes on next start", filled, e);
+            return;
+        }
+        if (filled > 0) {
+            log.info("Backfilled short_code_key for {} urls", filled);
+        }
+    }
+}
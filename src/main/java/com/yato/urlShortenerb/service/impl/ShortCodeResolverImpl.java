@@ -0,0 +1,126 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.cache.SingleFlight;
+import com.yato.urlShortenerb.config.DbConcurrencyLimiter;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.repo.UrlRepo;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import com.yato.urlShortenerb.service.ShortCodeResolver;
+import com.yato.urlShortenerb.util.ShortCodeCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resolves short codes through the local cache, the memory-mapped index, the
+ * shared cache and finally Postgres. Concurrent misses for the same code share one load through
+ * {@link SingleFlight}, so a cold viral link costs one query per node instead
+ * of one per request and cannot drain the connection pool on its own.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShortCodeResolverImpl implements ShortCodeResolver {
+
+    private static final String KEY_PREFIX = "short-code:";
+
+    private final UrlRepo urlRepo;
+    private final BoundedTtlCache<String, ResolvedUrl> shortCodeCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final DbConcurrencyLimiter dbLimiter;
+    private final ExpiryEvictionScheduler expiryScheduler;
+    private final SharedCacheTier sharedCache;
+    private final SingleFlight<String, Optional<ResolvedUrl>> shortCodeLoads;
+    private final ShortCodeIndexer shortCodeIndex;
+
+    @Value("${app.cache.l2.short-code-ttl:1h}")
+    private Duration sharedTtl;
+
+    @Value("${app.cache.l2.invalidation-hold:1m}")
+    private Duration invalidationHold;
+
+    @Value("${app.shortcode.key-lookup:true}")
+    private boolean keyLookup;
+
+    @PostConstruct
+    void subscribe() {
+        sharedCache.subscribe(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, this::invalidateLocal);
+    }
+
+    @Override
+    public Optional<ResolvedUrl> resolve(String shortCode) {
+        ResolvedUrl cached = shortCodeCache.get(shortCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        ResolvedUrl indexed = shortCodeIndex.lookup(shortCode);
+        if (indexed != null) {
+            cacheLocally(shortCode, indexed);
+            return Optional.of(indexed);
+        }
+
+        if (!shortCodeFilter.mightExist(shortCode)) {
+            return Optional.empty();
+        }
+
+        return shortCodeLoads.load(shortCode, () -> load(shortCode));
+    }
+
+    private Optional<ResolvedUrl> load(String shortCode) {
+        ResolvedUrl shared = sharedCache.get(KEY_PREFIX + shortCode, ResolvedUrl.class);
+        if (shared != null) {
+            shortCodeIndex.store(shortCode, shared);
+            cacheLocally(shortCode, shared);
+            return Optional.of(shared);
+        }
+
+        Optional<ResolvedUrl> loaded = dbLimiter.call(() -> findResolved(shortCode));
+        if (loaded.isPresent()) {
+            // Refused while an update or delete holds the key, since this load may have read the old row
+            sharedCache.putIfAbsent(KEY_PREFIX + shortCode, loaded.get(), sharedTtl);
+            shortCodeIndex.store(shortCode, loaded.get());
+            cacheLocally(shortCode, loaded.get());
+        } else {
+            shortCodeFilter.recordFalsePositive(shortCode);
+        }
+        return loaded;
+    }
+
+    private Optional<ResolvedUrl> findResolved(String shortCode) {
+        long key = ShortCodeCodec.pack(shortCode);
+        if (keyLookup && key != ShortCodeCodec.NONE) {
+            Optional<ResolvedUrl> byKey = urlRepo.findResolvedByShortCodeKey(key);
+            if (byKey.isPresent()) {
+                return byKey;
+            }
+        }
+        // Rows the key backfill has not reached, or written by an older version during a rolling deploy
+        return urlRepo.findResolvedByShortCode(shortCode);
+    }
+
+    private void cacheLocally(String shortCode, ResolvedUrl url) {
+        shortCodeCache.put(shortCode, url);
+        expiryScheduler.schedule(shortCode, url.expiry());
+    }
+
+    @Override
+    public void invalidate(String shortCode) {
+        invalidateLocal(shortCode);
+        sharedCache.evictAndHold(KEY_PREFIX + shortCode, invalidationHold);
+        sharedCache.publish(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, shortCode);
+    }
+
+    private void invalidateLocal(String shortCode) {
+        log.debug("Invalidating cached short code {}", shortCode);
+        shortCodeCache.invalidate(shortCode);
+        shortCodeIndex.invalidate(shortCode);
+        expiryScheduler.cancel(shortCode);
+    }
+}
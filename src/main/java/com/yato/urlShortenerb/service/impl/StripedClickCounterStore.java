@@ -0,0 +1,149 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.repo.ClickEventBatchRepo;
+import com.yato.urlShortenerb.service.ClickCounterStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Absorbs click increments in per-url LongAdders and periodically applies the
+ * aggregated deltas to urls.click_count. A flushed delta is subtracted from its
+ * adder rather than reset, so increments racing with a flush are never lost.
+ * Counters that drain to zero are removed so only recently clicked urls are
+ * kept. They are marked retired first, and an increment that finds its
+ * counter retired queues it, so the next flush picks up clicks that landed
+ * after the removal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StripedClickCounterStore implements ClickCounterStore {
+
+    private final ClickEventBatchRepo batchRepo;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Counter> retiredWithClicks = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public void increment(long urlId) {
+        Counter counter = counters.computeIfAbsent(urlId, Counter::new);
+        counter.clicks.increment();
+        if (counter.retired) {
+            retiredWithClicks.add(counter);
+        }
+    }
+
+    @Override
+    public long pending(long urlId) {
+        Counter counter = counters.get(urlId);
+        return counter == null ? 0 : counter.clicks.sum();
+    }
+
+    @Override
+    public long withPending(Long urlId, Long flushedCount) {
+        long flushed = flushedCount == null ? 0 : flushedCount;
+        return urlId == null ? flushed : flushed + pending(urlId);
+    }
+
+    @Override
+    public void forget(long urlId) {
+        counters.computeIfPresent(urlId, (id, counter) -> {
+            counter.retired = true;
+            return null;
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.clicks.counter-flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        List<Counter> late = new ArrayList<>();
+        try {
+            LongLongHashMap deltas = new LongLongHashMap(counters.size(), 0);
+            LongLongHashMap lateDeltas = collectLate(late);
+            counters.forEach((id, counter) -> {
+                long sum = counter.clicks.sum();
+                if (sum != 0) {
+                    deltas.put(id, sum);
+                }
+            });
+            if (deltas.isEmpty() && lateDeltas.isEmpty()) {
+                return;
+            }
+
+            LongLongHashMap all = new LongLongHashMap(deltas.size() + lateDeltas.size(), 0);
+            deltas.forEach(all::addTo);
+            lateDeltas.forEach(all::addTo);
+            batchRepo.addClicks(all);
+            for (Counter counter : late) {
+                counter.clicks.add(-counter.flushing);
+            }
+            late.clear();
+            deltas.forEach((id, sum) -> counters.computeIfPresent(id, (key, counter) -> {
+                counter.clicks.add(-sum);
+                // Retired before the sum is read, so an increment that missed the flag is in the sum
+                counter.retired = true;
+                if (counter.clicks.sum() != 0) {
+                    counter.retired = false;
+                    return counter;
+                }
+                return null;
+            }));
+            log.debug("Flushed click deltas for {} urls", all.size());
+        } catch (DataAccessException e) {
+            log.error("Failed to flush click counters, will retry", e);
+        } finally {
+            retiredWithClicks.addAll(late);
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Clicks on counters that were removed after the flush that drained them; counters still in use are flushed as usual
+    private LongLongHashMap collectLate(List<Counter> late) {
+        Set<Counter> seen = new HashSet<>();
+        LongLongHashMap deltas = new LongLongHashMap(retiredWithClicks.size(), 0);
+        for (Counter counter; (counter = retiredWithClicks.poll()) != null; ) {
+            if (!seen.add(counter) || counters.get(counter.urlId) == counter) {
+                continue;
+            }
+            counter.flushing = counter.clicks.sum();
+            if (counter.flushing != 0) {
+                deltas.addTo(counter.urlId, counter.flushing);
+                late.add(counter);
+            }
+        }
+        return deltas;
+    }
+
+    private static final class Counter {
+        final long urlId;
+        final LongAdder clicks = new LongAdder();
+        volatile boolean retired;
+        // Read and written under flushLock only
+        long flushing;
+
+        Counter(long urlId) {
+            this.urlId = urlId;
+        }
+    }
+}
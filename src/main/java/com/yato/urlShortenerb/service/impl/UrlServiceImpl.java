@@ -1,22 +1,45 @@
 package com.yato.urlShortenerb.service.impl;
 
+import com.yato.urlShortenerb.dto.BulkUrlResult;
+import com.yato.urlShortenerb.dto.UrlPage;
 import com.yato.urlShortenerb.dto.UrlRequest;
 import com.yato.urlShortenerb.dto.UrlResponse;
 import com.yato.urlShortenerb.entity.Url;
 import com.yato.urlShortenerb.entity.User;
+import com.yato.urlShortenerb.repo.ShortCodeIndexRepo;
 import com.yato.urlShortenerb.repo.UrlRepo;
 import com.yato.urlShortenerb.repo.UserRepo;
+import com.yato.urlShortenerb.service.ClickCounterStore;
+import com.yato.urlShortenerb.service.ShortCodeAllocator;
+import com.yato.urlShortenerb.service.ShortCodeFilter;
+import com.yato.urlShortenerb.service.ShortCodeResolver;
 import com.yato.urlShortenerb.service.UrlService;
-import com.yato.urlShortenerb.util.ShortCodeGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -25,63 +48,254 @@ public class UrlServiceImpl implements UrlService {
 
     private final UrlRepo urlRepo;
     private final UserRepo userRepo;
+    private final ShortCodeResolver shortCodeResolver;
+    private final ClickCounterStore clickCounterStore;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ShortCodeIndexRepo shortCodeIndexRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.shortcode.max-attempts:5}")
+    private int maxCodeAttempts;
+
+    @Value("${app.urls.bulk-chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.urls.max-page-size:1000}")
+    private int maxPageSize;
 
     @Override
     public ResponseEntity<?> create(UrlRequest request, String currentUserEmail) {
-        log.info("Creating short URL for user {}", currentUserEmail);
-
-        User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
+        log.debug("Creating short URL for user {}", currentUserEmail);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         Url url = new Url();
-        url.setUser(user);
-        url.setLongUrl(request.longUrl());
-        url.setShortCode(generateUniqueCode());
-        url.setCrtAt(LocalDateTime.now());
+        try {
+            User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
 
-// Apply expiry if provided
-        if (request.expiry() != null && !request.expiry().isEmpty()) {
-            url.setExpiry(LocalDateTime.parse(request.expiry()));
-        }
+            url.setUser(user);
+            url.setLongUrl(request.longUrl());
+            url.setCrtAt(LocalDateTime.now());
 
-        urlRepo.save(url);
+            // Apply expiry if provided
+            if (request.expiry() != null && !request.expiry().isEmpty()) {
+                url.setExpiry(LocalDateTime.parse(request.expiry()));
+            }
+            url.setRedirectPolicy(request.redirectPolicy());
+            url.setClickAccounting(request.clickAccounting());
+
+            saveWithUniqueCode(url);
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("urlshortener.url.create")
+                    .description("Single short URL creation including code allocation retries")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
 
         log.info("Created short code {} for URL {}", url.getShortCode(), url.getLongUrl());
 
-
         return ResponseEntity.ok(
                 new UrlResponse(url.getId(), url.getShortCode(), url.getLongUrl(), url.getClickCount())
         );
     }
 
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = ShortCodeGenerator.generate();
-        } while (urlRepo.findByShortCode(code).isPresent());
+    @Override
+    public void createBulk(InputStream requests, OutputStream results, String currentUserEmail) throws IOException {
+        log.info("Bulk creating short URLs for user {}", currentUserEmail);
+
+        User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
+
+        List<Url> chunk = new ArrayList<>(bulkChunkSize);
+        List<Integer> indexes = new ArrayList<>(bulkChunkSize);
+        int index = 0;
+        int created = 0;
+
+        try (MappingIterator<UrlRequest> items = objectMapper.readerFor(UrlRequest.class).readValues(requests)) {
+            while (true) {
+                UrlRequest request;
+                try {
+                    if (!items.hasNext()) {
+                        break;
+                    }
+                    request = items.next();
+                } catch (RuntimeException e) {
+                    // The stream cannot be resynchronised after malformed input
+                    writeResult(results, BulkUrlResult.failed(index, "Malformed input: " + e.getMessage()));
+                    break;
+                }
+
+                String error = validate(request);
+                if (error != null) {
+                    writeResult(results, BulkUrlResult.failed(index++, error));
+                    continue;
+                }
+
+                Url url = new Url();
+                url.setUser(user);
+                url.setLongUrl(request.longUrl());
+                url.setCrtAt(LocalDateTime.now());
+                if (request.expiry() != null && !request.expiry().isBlank()) {
+                    url.setExpiry(LocalDateTime.parse(request.expiry()));
+                }
+                url.setRedirectPolicy(request.redirectPolicy());
+                url.setClickAccounting(request.clickAccounting());
+                chunk.add(url);
+                indexes.add(index++);
+
+                if (chunk.size() >= bulkChunkSize) {
+                    created += persistChunk(chunk, indexes, results);
+                    chunk.clear();
+                    indexes.clear();
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            created += persistChunk(chunk, indexes, results);
+        }
+        results.flush();
+
+        log.info("Bulk created {} of {} short URLs for user {}", created, index, currentUserEmail);
+    }
+
+    private String validate(UrlRequest request) {
+        if (request == null || request.longUrl() == null || request.longUrl().isBlank()) {
+            return "longUrl is required";
+        }
+        if (request.expiry() != null && !request.expiry().isBlank()) {
+            try {
+                LocalDateTime.parse(request.expiry());
+            } catch (DateTimeParseException e) {
+                return "Invalid expiry format";
+            }
+        }
+        return null;
+    }
+
+    private int persistChunk(List<Url> chunk, List<Integer> indexes, OutputStream results) throws IOException {
+        List<String> codes = shortCodeAllocator.next(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).setShortCode(codes.get(i));
+        }
+
+        int created = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> urlRepo.saveAll(chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                Url url = chunk.get(i);
+                shortCodeFilter.added(url.getShortCode());
+                writeResult(results, BulkUrlResult.created(indexes.get(i), url.getId(), url.getShortCode(), url.getLongUrl()));
+            }
+            created = chunk.size();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk chunk of {} failed, retrying items individually", chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Url url = chunk.get(i);
+                url.setId(null);
+                try {
+                    saveWithUniqueCode(url);
+                    writeResult(results, BulkUrlResult.created(indexes.get(i), url.getId(), url.getShortCode(), url.getLongUrl()));
+                    created++;
+                } catch (RuntimeException ex) {
+                    writeResult(results, BulkUrlResult.failed(indexes.get(i), "Could not create short URL"));
+                }
+            }
+        }
+        results.flush();
+        return created;
+    }
+
+    private void writeResult(OutputStream results, BulkUrlResult result) throws IOException {
+        results.write(objectMapper.writeValueAsBytes(result));
+        results.write('\n');
+    }
 
-        log.debug("Generated unique short code: {}", code);
-        return code;
+    // Relies on the unique constraint instead of probing for a free code first
+    private void saveWithUniqueCode(Url url) {
+        for (int attempt = 1; ; attempt++) {
+            String code = shortCodeAllocator.next();
+            url.setShortCode(code);
+            try {
+                urlRepo.save(url);
+                shortCodeFilter.added(code);
+                log.debug("Allocated short code {} on attempt {}", code, attempt);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= maxCodeAttempts || !urlRepo.existsByShortCode(code)) {
+                    throw e;
+                }
+                log.warn("Short code {} already taken, retrying", code);
+                meterRegistry.counter("urlshortener.shortcode.retries").increment();
+                url.setId(null);
+            }
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getAll(String currentUserEmail) {
-        log.info("Fetching URLs for user {}", currentUserEmail);
+        log.debug("Fetching URLs for user {}", currentUserEmail);
 
         User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
 
-        List<UrlResponse> resp = urlRepo.findByUserId(user.getId())
+        List<UrlResponse> resp = urlRepo.findPageByUserId(user.getId(), 0L, Pageable.unpaged())
                 .stream()
-                .map(u -> new UrlResponse(
-                        u.getId(),
-                        u.getShortCode(),
-                        u.getLongUrl(),
-                        u.getClickCount()
-                ))
+                .map(this::withPendingClicks)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(resp);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getPage(String currentUserEmail, Long after, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+        }
+
+        User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
+
+        List<UrlResponse> items = urlRepo.findPageByUserId(user.getId(), after == null ? 0L : after, PageRequest.of(0, limit))
+                .stream()
+                .map(this::withPendingClicks)
+                .collect(Collectors.toList());
+
+        Long nextCursor = items.size() < limit ? null : items.get(items.size() - 1).id();
+        return ResponseEntity.ok(new UrlPage(items, nextCursor));
+    }
+
+    // Writes the JSON array incrementally from a DB cursor so memory stays flat
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(String currentUserEmail, OutputStream out) throws IOException {
+        log.debug("Exporting URLs for user {}", currentUserEmail);
+
+        User user = userRepo.findByEmail(currentUserEmail).orElseThrow();
+
+        out.write('[');
+        try (Stream<UrlResponse> rows = urlRepo.streamByUserId(user.getId())) {
+            Iterator<UrlResponse> it = rows.iterator();
+            boolean first = true;
+            while (it.hasNext()) {
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(objectMapper.writeValueAsBytes(withPendingClicks(it.next())));
+                first = false;
+            }
+        }
+        out.write(']');
+        out.flush();
+    }
+
+    private UrlResponse withPendingClicks(UrlResponse r) {
+        return new UrlResponse(r.id(), r.shortcode(), r.longUrl(), clickCounterStore.withPending(r.id(), r.clickcount()));
+    }
+
     @Override
     public ResponseEntity<?> delete(Long id, String currentUserEmail) {
         log.info("Deleting URL {} for {}", id, currentUserEmail);
@@ -102,6 +316,10 @@ public class UrlServiceImpl implements UrlService {
         }
 
         urlRepo.delete(url);
+        shortCodeIndexRepo.recordChanges(List.of(url.getShortCode()));
+        shortCodeResolver.invalidate(url.getShortCode());
+        clickCounterStore.forget(url.getId());
+        shortCodeFilter.removed(url.getShortCode());
         log.info("URL {} deleted successfully by {}", id, currentUserEmail);
 
         return ResponseEntity.ok("Deleted");
@@ -135,7 +353,17 @@ public class UrlServiceImpl implements UrlService {
             }
         }
 
+        // Browsers and CDNs may keep serving a previously cached permanent redirect until its max-age runs out
+        if (request.redirectPolicy() != null) {
+            url.setRedirectPolicy(request.redirectPolicy());
+        }
+        if (request.clickAccounting() != null) {
+            url.setClickAccounting(request.clickAccounting());
+        }
+
         urlRepo.save(url);
+        shortCodeIndexRepo.recordChanges(List.of(url.getShortCode()));
+        shortCodeResolver.invalidate(url.getShortCode());
 
         return ResponseEntity.ok("URL updated successfully");
     }
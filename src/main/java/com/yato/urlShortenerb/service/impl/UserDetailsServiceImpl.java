@@ -1,26 +1,52 @@
 package com.yato.urlShortenerb.service.impl;
 
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.dto.CachedPrincipal;
 import com.yato.urlShortenerb.entity.User;
 import com.yato.urlShortenerb.repo.UserRepo;
 import com.yato.urlShortenerb.service.UserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
+    private static final String KEY_PREFIX = "principal:v2:";
+
     private final UserRepo repo;
+    private final BoundedTtlCache<String, UserDetails> principalCache;
+    private final SharedCacheTier sharedCache;
+
+    @Value("${app.cache.l2.principal-ttl:5m}")
+    private Duration sharedTtl;
 
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException{
-        User user =repo.findByEmail(email).orElseThrow(()-> new UsernameNotFoundException("User not Found"));
-        return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        UserDetails cached = principalCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        CachedPrincipal principal = sharedCache.get(KEY_PREFIX + email, CachedPrincipal.class);
+        if (principal == null) {
+            User user =repo.findByEmail(email).orElseThrow(()-> new UsernameNotFoundException("User not Found"));
+            principal = new CachedPrincipal(user.getEmail(), List.of("ROLE_USER"));
+            sharedCache.put(KEY_PREFIX + email, principal, sharedTtl);
+        }
+
+        // Requests authenticate with a JWT, so the details carry no password
+        UserDetails details = new org.springframework.security.core.userdetails.User(principal.email(), "",
+                principal.authorities().stream().map(SimpleGrantedAuthority::new).toList());
+        principalCache.put(email, details);
+        return details;
     }
 }
@@ -0,0 +1,34 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.repo.AnalyticsSketchRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secret salt of {@link com.yato.urlShortenerb.util.VisitorHash}es. Uses
+ * {@code app.analytics.visitor-salt} when set and otherwise the random salt
+ * stored in the database, so visitor hashes are never computed with a known
+ * salt and stay the same across nodes and restarts.
+ */
+@Slf4j
+@Component
+public class VisitorSalt {
+
+    private final String value;
+
+    public VisitorSalt(
+            AnalyticsSketchRepo sketchRepo,
+            @Value("${app.analytics.visitor-salt:}") String configured) {
+        if (configured.isBlank()) {
+            log.info("app.analytics.visitor-salt is not set, using the salt generated in the database");
+            this.value = sketchRepo.generatedVisitorSalt();
+        } else {
+            this.value = configured;
+        }
+    }
+
+    public String value() {
+        return value;
+    }
+}
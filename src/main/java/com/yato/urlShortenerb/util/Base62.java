@@ -0,0 +1,35 @@
+package com.yato.urlShortenerb.util;
+
+public final class Base62 {
+
+    public static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    public static final int BASE = 62;
+
+    private Base62() {
+    }
+
+    /** Number of distinct codes of the given width, i.e. 62^width. */
+    public static long keyspace(int width) {
+        long n = 1;
+        for (int i = 0; i < width; i++) {
+            n = Math.multiplyExact(n, BASE);
+        }
+        return n;
+    }
+
+    /** Encodes a non-negative value as exactly {@code width} digits, left-padded with '0'. */
+    public static String encode(long value, int width) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative");
+        }
+        char[] out = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            out[i] = ALPHABET.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        if (value != 0) {
+            throw new IllegalArgumentException("value does not fit in " + width + " base62 digits");
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,33 @@
+package com.yato.urlShortenerb.util;
+
+import java.net.URI;
+import java.util.Locale;
+
+public final class ClickClassifier {
+
+    public static final String DIRECT = "direct";
+    public static final String UNKNOWN = "unknown";
+    private static final int MAX_HOST_LENGTH = 255;
+
+    private ClickClassifier() {
+    }
+
+    public static String referrerHost(String referrer) {
+        if (referrer == null || referrer.isBlank()) {
+            return DIRECT;
+        }
+        try {
+            String host = URI.create(referrer.trim()).getHost();
+            if (host == null) {
+                return UNKNOWN;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            return host.length() > MAX_HOST_LENGTH ? host.substring(0, MAX_HOST_LENGTH) : host;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.yato.urlShortenerb.util;
+
+import com.yato.urlShortenerb.dto.ClickEvent;
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+import com.yato.urlShortenerb.entity.Browser;
+import com.yato.urlShortenerb.entity.DeviceClass;
+import com.yato.urlShortenerb.entity.OperatingSystem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary form of a {@link ClickEvent} in the click log: a version byte, url id,
+ * timestamp, the user agent's enum codes, the raw user agent and referrer
+ * as length-prefixed UTF-8 and, since version 2, the visitor hash. Strings are cut at {@value #MAX_STRING_LENGTH}
+ * characters, well past what analytics_event keeps. New fields go behind a
+ * new version so segments written before an upgrade still decode.
+ */
+public final class ClickEventCodec {
+
+    public static final int MAX_STRING_LENGTH = 2048;
+
+    private static final byte VERSION = 2;
+    // Version 1 records have no visitor hash and decode as unknown visitors
+    private static final byte VERSION_WITHOUT_VISITOR = 1;
+    private static final int FIXED_BYTES = 1 + 8 + 8 + 4 + 2 + 2 + 2 + 4 + 4 + 8;
+
+    private ClickEventCodec() {
+    }
+
+    public static ByteBuffer encode(ClickEvent event) {
+        byte[] userAgent = utf8(event.userAgent());
+        byte[] referrer = utf8(event.referrer());
+        UserAgentInfo agent = event.agent() == null ? UserAgentInfo.UNKNOWN : event.agent();
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + length(userAgent) + length(referrer));
+        buffer.put(VERSION)
+                .putLong(event.urlId())
+                .putLong(event.timestamp().toEpochSecond(ZoneOffset.UTC))
+                .putInt(event.timestamp().getNano())
+                .putShort(agent.device().code())
+                .putShort(agent.browser().code())
+                .putShort(agent.os().code());
+        putString(buffer, userAgent);
+        putString(buffer, referrer);
+        buffer.putLong(event.visitorHash());
+        return buffer.flip();
+    }
+
+    /** Throws IllegalArgumentException for records it cannot read. */
+    public static ClickEvent decode(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION && version != VERSION_WITHOUT_VISITOR) {
+                throw new IllegalArgumentException("Unknown click record version " + version);
+            }
+            long urlId = buffer.getLong();
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            UserAgentInfo agent = new UserAgentInfo(
+                    DeviceClass.fromCode(buffer.getShort()),
+                    Browser.fromCode(buffer.getShort()),
+                    OperatingSystem.fromCode(buffer.getShort()));
+            String userAgent = getString(buffer);
+            String referrer = getString(buffer);
+            long visitorHash = version == VERSION ? buffer.getLong() : VisitorHash.UNKNOWN;
+            return new ClickEvent(urlId, userAgent, agent, referrer, timestamp, visitorHash);
+        } catch (RuntimeException e) {
+            throw e instanceof IllegalArgumentException iae ? iae : new IllegalArgumentException("Malformed click record", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        String cut = value.length() > MAX_STRING_LENGTH ? value.substring(0, MAX_STRING_LENGTH) : value;
+        return cut.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.yato.urlShortenerb.util;
+
+/**
+ * Keyed bijection on [0, size) built from a Feistel network over the
+ * smallest even bit width covering {@code size}, with cycle walking to stay
+ * inside the range. Sequential counters come out looking random while
+ * remaining collision-free.
+ */
+public final class CodeScrambler {
+
+    private static final int ROUNDS = 4;
+
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public CodeScrambler(long size, long key) {
+        if (size <= 1) {
+            throw new IllegalArgumentException("size must be greater than 1");
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(size - 1);
+        this.size = size;
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+
+        long state = key;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+    }
+
+    public long scramble(long value) {
+        if (value < 0 || value >= size) {
+            throw new IllegalArgumentException("value out of range");
+        }
+        long x = value;
+        do {
+            x = permute(x);
+        } while (x >= size);
+        return x;
+    }
+
+    private long permute(long x) {
+        long left = (x >>> halfBits) & halfMask;
+        long right = x & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,58 @@
+package com.yato.urlShortenerb.util;
+
+/**
+ * Packs base62 short codes of up to {@value #MAX_LENGTH} characters into a
+ * single long: the length in the top four bits and the base62 value below
+ * it. Leading '0' digits are preserved by the length, so every packable code
+ * maps to a distinct non-zero value.
+ */
+public final class ShortCodeCodec {
+
+    public static final int MAX_LENGTH = 10;
+
+    /** Returned by {@link #pack(String)} for codes that cannot be packed. */
+    public static final long NONE = 0;
+
+    private static final int LENGTH_SHIFT = 60;
+    private static final long VALUE_MASK = (1L << LENGTH_SHIFT) - 1;
+
+    private ShortCodeCodec() {
+    }
+
+    public static long pack(CharSequence code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return NONE;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digit(code.charAt(i));
+            if (digit < 0) {
+                return NONE;
+            }
+            value = value * Base62.BASE + digit;
+        }
+        return ((long) length << LENGTH_SHIFT) | value;
+    }
+
+    public static String unpack(long packed) {
+        int length = (int) (packed >>> LENGTH_SHIFT);
+        if (packed == NONE || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Not a packed short code: " + packed);
+        }
+        return Base62.encode(packed & VALUE_MASK, length);
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 36;
+        }
+        return -1;
+    }
+}
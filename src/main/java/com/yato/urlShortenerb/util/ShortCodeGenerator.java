@@ -5,9 +5,9 @@ import lombok.NoArgsConstructor;
 import java.security.SecureRandom;
 @NoArgsConstructor
 public final class ShortCodeGenerator {
-    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String ALPHABET = Base62.ALPHABET;
     private static final SecureRandom RANDOM=new SecureRandom();
-    private static final int DEFAULT_LENGTH=7;
+    public static final int DEFAULT_LENGTH=7;
 
     public static String generate(){
         StringBuilder sb= new StringBuilder(DEFAULT_LENGTH);
@@ -0,0 +1,97 @@
+package com.yato.urlShortenerb.util;
+
+import com.yato.urlShortenerb.dto.UserAgentInfo;
+import com.yato.urlShortenerb.entity.Browser;
+import com.yato.urlShortenerb.entity.DeviceClass;
+import com.yato.urlShortenerb.entity.OperatingSystem;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Token-based User-Agent classification. Rules are checked in order, since
+ * most agents claim to be several browsers at once (Edge and Opera also send
+ * "Chrome/", Chrome also sends "Safari/", iOS also sends "Mac OS X").
+ */
+public final class UserAgentParser {
+
+    private static final List<String> BOT_TOKENS = List.of(
+            "bot", "spider", "crawl", "slurp", "facebookexternalhit", "headlesschrome", "lighthouse",
+            "curl/", "wget/", "python-requests", "python-urllib", "okhttp", "go-http-client",
+            "java/", "libwww", "httpclient", "axios/", "node-fetch", "postmanruntime");
+
+    private UserAgentParser() {
+    }
+
+    public static UserAgentInfo parse(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UserAgentInfo.UNKNOWN;
+        }
+        String ua = userAgent.toLowerCase(Locale.ROOT);
+        OperatingSystem os = os(ua);
+        Browser browser = browser(ua);
+        return new UserAgentInfo(device(ua, os), browser, os);
+    }
+
+    private static DeviceClass device(String ua, OperatingSystem os) {
+        for (String token : BOT_TOKENS) {
+            if (ua.contains(token)) {
+                return DeviceClass.BOT;
+            }
+        }
+        if (ua.contains("ipad") || ua.contains("tablet") || (os == OperatingSystem.ANDROID && !ua.contains("mobile"))) {
+            return DeviceClass.TABLET;
+        }
+        if (ua.contains("mobi") || ua.contains("iphone") || ua.contains("ipod") || os == OperatingSystem.ANDROID) {
+            return DeviceClass.MOBILE;
+        }
+        return DeviceClass.DESKTOP;
+    }
+
+    private static OperatingSystem os(String ua) {
+        if (ua.contains("windows")) {
+            return OperatingSystem.WINDOWS;
+        }
+        if (ua.contains("iphone") || ua.contains("ipad") || ua.contains("ipod")) {
+            return OperatingSystem.IOS;
+        }
+        if (ua.contains("android")) {
+            return OperatingSystem.ANDROID;
+        }
+        if (ua.contains("cros ")) {
+            return OperatingSystem.CHROMEOS;
+        }
+        if (ua.contains("mac os x") || ua.contains("macintosh")) {
+            return OperatingSystem.MACOS;
+        }
+        if (ua.contains("linux") || ua.contains("x11")) {
+            return OperatingSystem.LINUX;
+        }
+        return OperatingSystem.OTHER;
+    }
+
+    private static Browser browser(String ua) {
+        if (ua.contains("edg/") || ua.contains("edge/") || ua.contains("edga/") || ua.contains("edgios/")) {
+            return Browser.EDGE;
+        }
+        if (ua.contains("opr/") || ua.contains("opera")) {
+            return Browser.OPERA;
+        }
+        if (ua.contains("samsungbrowser/")) {
+            return Browser.SAMSUNG;
+        }
+        if (ua.contains("firefox/") || ua.contains("fxios/")) {
+            return Browser.FIREFOX;
+        }
+        if (ua.contains("chrome/") || ua.contains("crios/") || ua.contains("chromium/")) {
+            return Browser.CHROME;
+        }
+        if (ua.contains("safari/") || (ua.contains("applewebkit/") && ua.contains("mobile/"))) {
+            return Browser.SAFARI;
+        }
+        if (ua.contains("msie") || ua.contains("trident/")) {
+            return Browser.IE;
+        }
+        return Browser.OTHER;
+    }
+}
@@ -0,0 +1,44 @@
+package com.yato.urlShortenerb.util;
+
+/**
+ * Anonymous visitor identity for unique visitor counts: a salted 64-bit hash
+ * of the client address and user agent. Only the hash leaves the request, so
+ * neither is stored; with a secret salt it cannot be reversed by hashing
+ * every address either.
+ */
+public final class VisitorHash {
+
+    /** No visitor to count, e.g. a click without a client address. */
+    public static final long UNKNOWN = 0;
+
+    private VisitorHash() {
+    }
+
+    public static long of(String salt, String address, String userAgent) {
+        if (address == null || address.isBlank()) {
+            return UNKNOWN;
+        }
+        long h = 0xCBF29CE484222325L;
+        h = update(h, salt);
+        h = update(h, address);
+        h = update(h, userAgent == null ? "" : userAgent);
+        h = mix(h);
+        return h == UNKNOWN ? 1 : h;
+    }
+
+    // FNV-1a with a separator after each part, so "ab" + "c" and "a" + "bc" differ
+    private static long update(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= 0xFFFF;
+        return h * 0x100000001B3L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,73 @@
+-- One-off migration of the unpartitioned analytics_event table to monthly partitions
+-- with dictionary-encoded user agents and referrers. Run once with the application
+-- stopped, before deploying the partitioned release:
+--
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f src/main/resources/db/migrate-analytics-event-partitioned.sql
+
+BEGIN;
+
+ALTER TABLE analytics_event RENAME TO analytics_event_legacy;
+DROP INDEX IF EXISTS idx_analytics_event_url_id;
+
+CREATE TABLE IF NOT EXISTS analytics_user_agent (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    value VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS analytics_referrer (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    value VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE SEQUENCE IF NOT EXISTS analytics_event_id_seq;
+
+CREATE TABLE analytics_event (
+    id BIGINT NOT NULL DEFAULT nextval('analytics_event_id_seq'),
+    url_id BIGINT NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    user_agent_id INT,
+    referrer_id INT,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX idx_analytics_event_url_ts ON analytics_event (url_id, timestamp);
+
+-- One partition per month of existing data, through three months ahead
+DO $$
+DECLARE
+    m DATE;
+BEGIN
+    FOR m IN
+        SELECT d::date
+        FROM generate_series(
+                (SELECT date_trunc('month', COALESCE(MIN(timestamp), now())) FROM analytics_event_legacy),
+                date_trunc('month', now()) + interval '3 months',
+                interval '1 month') d
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF analytics_event FOR VALUES FROM (%L) TO (%L)',
+                       'analytics_event_p' || to_char(m, 'YYYYMM'), m, (m + interval '1 month')::date);
+    END LOOP;
+END
+$$;
+
+-- Same normalisation as EventDictionaryRepo.normalize: blank is NULL, long values are truncated
+INSERT INTO analytics_user_agent (value)
+SELECT DISTINCT left(device, 512) FROM analytics_event_legacy WHERE btrim(device) <> ''
+ON CONFLICT (value) DO NOTHING;
+
+INSERT INTO analytics_referrer (value)
+SELECT DISTINCT left(referrer, 512) FROM analytics_event_legacy WHERE btrim(referrer) <> ''
+ON CONFLICT (value) DO NOTHING;
+
+INSERT INTO analytics_event (id, url_id, timestamp, user_agent_id, referrer_id)
+SELECT e.id, e.url_id, e.timestamp, ua.id, r.id
+FROM analytics_event_legacy e
+LEFT JOIN analytics_user_agent ua ON ua.value = left(e.device, 512) AND btrim(e.device) <> ''
+LEFT JOIN analytics_referrer r ON r.value = left(e.referrer, 512) AND btrim(e.referrer) <> ''
+WHERE e.url_id IS NOT NULL AND e.timestamp IS NOT NULL;
+
+SELECT setval('analytics_event_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM analytics_event), false);
+
+DROP TABLE analytics_event_legacy;
+
+COMMIT;
@@ -0,0 +1,156 @@
+-- Idempotent schema, applied on every startup before Hibernate validates the mappings.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS urls (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT REFERENCES users (id),
+    short_code VARCHAR(255) NOT NULL UNIQUE,
+    long_url TEXT NOT NULL,
+    click_count BIGINT,
+    crt_at TIMESTAMP(6),
+    expiry TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_urls_user_id ON urls (user_id);
+
+-- Recently created codes, read by every node's Bloom filter catch-up
+CREATE INDEX IF NOT EXISTS idx_urls_crt_at ON urls (crt_at);
+
+-- Per-link redirect caching and click accounting, NULL means the configured default
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS redirect_policy VARCHAR(32);
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS click_accounting VARCHAR(16);
+
+-- short_code packed into a BIGINT, filled in for older rows by ShortCodeKeyBackfillJob
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS short_code_key BIGINT;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_urls_short_code_key ON urls (short_code_key);
+
+-- Dictionaries for the raw User-Agent and Referer strings, events store the ids
+CREATE TABLE IF NOT EXISTS analytics_user_agent (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    value VARCHAR(512) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS analytics_referrer (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    value VARCHAR(512) NOT NULL UNIQUE
+);
+
+-- Raw click events, partitioned by month. Partitions are created ahead and dropped
+-- after the retention window by AnalyticsPartitionMaintainer. Databases created with
+-- the old unpartitioned table need db/migrate-analytics-event-partitioned.sql once.
+CREATE SEQUENCE IF NOT EXISTS analytics_event_id_seq;
+
+CREATE TABLE IF NOT EXISTS analytics_event (
+    id BIGINT NOT NULL DEFAULT nextval('analytics_event_id_seq'),
+    url_id BIGINT NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    user_agent_id INT,
+    referrer_id INT,
+    device_class SMALLINT,
+    browser SMALLINT,
+    os SMALLINT,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- User-Agent classification codes, see DeviceClass, Browser and OperatingSystem
+ALTER TABLE analytics_event ADD COLUMN IF NOT EXISTS device_class SMALLINT;
+ALTER TABLE analytics_event ADD COLUMN IF NOT EXISTS browser SMALLINT;
+ALTER TABLE analytics_event ADD COLUMN IF NOT EXISTS os SMALLINT;
+
+CREATE INDEX IF NOT EXISTS idx_analytics_event_url_ts ON analytics_event (url_id, timestamp);
+
+-- Clicks per (url, day, device class, referrer host), maintained by the click writer
+CREATE TABLE IF NOT EXISTS analytics_daily_rollup (
+    url_id BIGINT NOT NULL,
+    click_date DATE NOT NULL,
+    device_class VARCHAR(16) NOT NULL,
+    referrer_host VARCHAR(255) NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (url_id, click_date, device_class, referrer_host)
+);
+
+-- Block numbers leased by earlier versions, only read to continue short_code_range_seq after them
+CREATE SEQUENCE IF NOT EXISTS short_code_block_seq;
+
+-- Each nextval is the first counter value of a leased range, so ranges cannot overlap whatever the block size.
+-- The increment must equal app.shortcode.block-size, change both together while no node is allocating.
+-- Continues after blocks leased from short_code_block_seq, whose values were block numbers of the default size 1000.
+CREATE SEQUENCE IF NOT EXISTS short_code_range_seq INCREMENT BY 1000 MINVALUE 0 START WITH 0;
+SELECT setval('short_code_range_seq', (SELECT (last_value + 1) * 1000 FROM short_code_block_seq), false)
+WHERE (SELECT is_called FROM short_code_block_seq) AND NOT (SELECT is_called FROM short_code_range_seq);
+
+-- Url ids come from a pooled sequence (allocationSize 50) so inserts can be batched.
+-- Only moves the sequence forward when it lags behind ids issued by the old identity column.
+CREATE SEQUENCE IF NOT EXISTS urls_seq INCREMENT BY 50;
+SELECT setval('urls_seq', (SELECT MAX(id) FROM urls))
+WHERE (SELECT MAX(id) FROM urls) > (SELECT last_value FROM urls_seq);
+
+-- Drives the expired url purge
+CREATE INDEX IF NOT EXISTS idx_urls_expiry ON urls (expiry) WHERE expiry IS NOT NULL;
+
+-- Codes whose url row was updated or deleted; each node's short code index replays these
+CREATE TABLE IF NOT EXISTS url_changes (
+    id BIGSERIAL PRIMARY KEY,
+    short_code VARCHAR(255) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_url_changes_changed_at ON url_changes (changed_at);
+
+-- Random id generated once per database; local files built from it, like the short code index, are discarded when it differs
+CREATE TABLE IF NOT EXISTS database_identity (
+    singleton BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+    id BIGINT NOT NULL
+);
+INSERT INTO database_identity (id)
+SELECT ('x' || substr(md5(random()::text || clock_timestamp()::text), 1, 16))::bit(64)::bigint
+ON CONFLICT DO NOTHING;
+
+-- Expired urls and their rollups, written by the purge job in ARCHIVE mode
+CREATE TABLE IF NOT EXISTS urls_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT,
+    short_code VARCHAR(255) NOT NULL,
+    long_url TEXT NOT NULL,
+    click_count BIGINT,
+    crt_at TIMESTAMP(6),
+    expiry TIMESTAMP(6),
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS analytics_daily_rollup_archive (
+    url_id BIGINT NOT NULL,
+    click_date DATE NOT NULL,
+    device_class VARCHAR(16) NOT NULL,
+    referrer_host VARCHAR(255) NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (url_id, click_date, device_class, referrer_host)
+);
+
+-- Mergeable visitor, referrer, link and click time sketches, folded in by the click writers
+CREATE TABLE IF NOT EXISTS analytics_url_sketch (
+    url_id BIGINT PRIMARY KEY,
+    clicks BIGINT NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS analytics_user_sketch (
+    user_id BIGINT PRIMARY KEY,
+    clicks BIGINT NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+-- Salt of visitor hashes when app.analytics.visitor-salt is not set, generated once so every node and restart agrees
+CREATE TABLE IF NOT EXISTS analytics_visitor_salt (
+    singleton BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+    salt TEXT NOT NULL
+);
+INSERT INTO analytics_visitor_salt (salt)
+SELECT md5(random()::text || clock_timestamp()::text) || md5(random()::text || clock_timestamp()::text)
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,58 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEverythingAdded() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("code" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("code" + i));
+        }
+    }
+
+    @Test
+    void countsValuesAddedAgainOnce() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.add("code" + i));
+        }
+        double fpp = filter.expectedFalsePositiveRate();
+
+        // Catching up re-adds codes the filter already holds
+        for (int round = 0; round < 12; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                assertFalse(filter.add("code" + i));
+            }
+        }
+
+        assertEquals(1_000, filter.insertions());
+        assertEquals(fpp, filter.expectedFalsePositiveRate(), 0);
+    }
+
+    @Test
+    void staysNearTheConfiguredFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("code" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+    }
+}
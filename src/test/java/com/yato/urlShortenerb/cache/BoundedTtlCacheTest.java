@@ -0,0 +1,104 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedTtlCacheTest {
+
+    // 16 segments of 2 entries each
+    private static final int MAX_SIZE = 32;
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryOfASegment() {
+        BoundedTtlCache<Integer, String> cache = new BoundedTtlCache<>(MAX_SIZE, Duration.ofMinutes(1));
+        // Small multiples of 16 all land in the same segment
+        cache.put(0, "a");
+        cache.put(16, "b");
+        assertEquals("a", cache.get(0));
+
+        cache.put(32, "c");
+
+        assertNull(cache.get(16));
+        assertEquals("a", cache.get(0));
+        assertEquals("c", cache.get(32));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void keepsSegmentsIndependent() {
+        BoundedTtlCache<Integer, String> cache = new BoundedTtlCache<>(MAX_SIZE, Duration.ofMinutes(1));
+        for (int key = 0; key < MAX_SIZE; key++) {
+            cache.put(key, "v" + key);
+        }
+
+        // Keys 0..31 fill every segment exactly, so nothing was evicted
+        assertEquals(MAX_SIZE, cache.size());
+        for (int key = 0; key < MAX_SIZE; key++) {
+            assertEquals("v" + key, cache.get(key));
+        }
+        assertEquals(0, cache.stats().evictions());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(MAX_SIZE, Duration.ofMillis(50));
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().evictions());
+
+        // A put restarts the clock
+        cache.put("a", "2");
+        assertEquals("2", cache.get("a"));
+    }
+
+    @Test
+    void countsHitsMissesEvictionsAndSize() {
+        BoundedTtlCache<Integer, String> cache = new BoundedTtlCache<>(MAX_SIZE, Duration.ofMinutes(1));
+        cache.put(0, "a");
+        cache.put(16, "b");
+        cache.put(32, "c");
+        cache.put(1, "d");
+
+        cache.get(0);
+        cache.get(32);
+        cache.get(1);
+        cache.get(2);
+
+        assertEquals(new CacheStats(2, 2, 1, 3), cache.stats());
+    }
+
+    @Test
+    void invalidatesOnlyAMatchingValue() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(MAX_SIZE, Duration.ofMinutes(1));
+        cache.put("a", "old");
+        cache.put("b", "x");
+
+        assertFalse(cache.invalidateIf("a", "stale"::equals));
+        assertEquals("old", cache.get("a"));
+        assertTrue(cache.invalidateIf("a", "old"::equals));
+        assertNull(cache.get("a"));
+
+        cache.invalidate("b");
+        assertNull(cache.get("b"));
+        cache.put("c", "y");
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rejectsANonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedTtlCache<>(0, Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.dto.NameCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClickSketchTest {
+
+    @Test
+    void countsClicksVisitorsReferrersAndTimes() {
+        ClickSketch sketch = new ClickSketch();
+        SplittableRandom random = new SplittableRandom(1);
+        long[] visitors = random.longs(500).toArray();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(visitors[i % visitors.length], i % 5 == 0 ? "news.example" : "direct", 3_600 * (i % 24));
+        }
+
+        assertEquals(5_000, sketch.clicks());
+        assertEquals(500, sketch.visitors().estimate(), 500 * 0.05);
+        assertEquals(new NameCount("direct", 4_000), sketch.referrers().top(1).get(0));
+        assertEquals(5_000, sketch.clickTimes().count());
+    }
+
+    @Test
+    void doesNotCountUnknownVisitors() {
+        ClickSketch sketch = new ClickSketch();
+        sketch.add(0, "direct", 0);
+        sketch.add(0, "direct", 0);
+
+        assertEquals(2, sketch.clicks());
+        assertEquals(0, sketch.visitors().estimate());
+    }
+
+    @Test
+    void mergeAddsUpBothSketches() {
+        ClickSketch left = new ClickSketch();
+        ClickSketch right = new ClickSketch();
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 1_000; i++) {
+            left.add(random.nextLong(), "left.example", 100);
+            right.add(random.nextLong(), "right.example", 200);
+        }
+
+        left.merge(right);
+
+        assertEquals(2_000, left.clicks());
+        assertEquals(2_000, left.visitors().estimate(), 2_000 * 0.05);
+        assertEquals(2, left.referrers().top(10).size());
+    }
+
+    @Test
+    void userSketchesRankTheirLinksByClicks() {
+        ClickSketch user = new ClickSketch();
+        for (long urlId = 1; urlId <= 3; urlId++) {
+            ClickSketch url = new ClickSketch();
+            for (int i = 0; i < urlId * 10; i++) {
+                url.add(i + 1, "direct", 0);
+            }
+            user.addUrl(urlId, url);
+        }
+
+        assertEquals(60, user.clicks());
+        assertEquals(new NameCount("3", 30), user.links().top(1).get(0));
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        ClickSketch sketch = new ClickSketch();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 3_000; i++) {
+            sketch.add(random.nextLong(), "host-" + random.nextInt(100), random.nextInt(86_400));
+        }
+        sketch.addUrl(7, new ClickSketch());
+
+        byte[] bytes = sketch.toBytes();
+        ClickSketch read = ClickSketch.fromBytes(bytes);
+
+        assertEquals(sketch.clicks(), read.clicks());
+        assertEquals(sketch.visitors().estimate(), read.visitors().estimate());
+        assertEquals(sketch.referrers().top(64), read.referrers().top(64));
+        assertEquals(sketch.links().top(64), read.links().top(64));
+        assertEquals(sketch.clickTimes().quantile(0.5), read.clickTimes().quantile(0.5), 0);
+        assertArrayEquals(bytes, read.toBytes());
+    }
+
+    @Test
+    void rejectsBytesItCannotRead() {
+        byte[] bytes = new ClickSketch().toBytes();
+
+        assertThrows(IllegalArgumentException.class, () -> ClickSketch.fromBytes(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> ClickSketch.fromBytes(Arrays.copyOf(bytes, bytes.length - 3)));
+        bytes[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> ClickSketch.fromBytes(bytes));
+    }
+}
@@ -0,0 +1,128 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesSmallCardinalitiesWhileSparse() {
+        HyperLogLog hll = new HyperLogLog(12);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200; i++) {
+            hll.add(random.nextLong());
+        }
+        assertEquals(200, hll.estimate(), 200 * 0.03);
+    }
+
+    @Test
+    void estimatesLargeCardinalitiesWithinExpectedError() {
+        HyperLogLog hll = new HyperLogLog(12);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 100_000; i++) {
+            hll.add(random.nextLong());
+        }
+        // Standard error is 1.04 / sqrt(4096), about 1.6%
+        assertEquals(100_000, hll.estimate(), 100_000 * 0.05);
+    }
+
+    @Test
+    void countsRepeatedValuesOnce() {
+        HyperLogLog hll = new HyperLogLog(12);
+        SplittableRandom random = new SplittableRandom(3);
+        long[] values = random.longs(1_000).toArray();
+        for (int round = 0; round < 10; round++) {
+            for (long value : values) {
+                hll.add(value);
+            }
+        }
+        assertEquals(1_000, hll.estimate(), 1_000 * 0.05);
+    }
+
+    @Test
+    void mergeMatchesASketchOfTheUnion() {
+        long[] values = new SplittableRandom(4).longs(20_000).toArray();
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog all = new HyperLogLog(12);
+        for (int i = 0; i < values.length; i++) {
+            // Overlapping halves
+            if (i < 12_000) {
+                left.add(values[i]);
+            }
+            if (i >= 8_000) {
+                right.add(values[i]);
+            }
+            all.add(values[i]);
+        }
+
+        left.merge(right);
+
+        assertEquals(all.estimate(), left.estimate());
+        assertArrayEquals(all.toBytes(), left.toBytes());
+    }
+
+    @Test
+    void mergeIsIdempotent() {
+        HyperLogLog hll = new HyperLogLog(10);
+        HyperLogLog other = new HyperLogLog(10);
+        new SplittableRandom(5).longs(5_000).forEach(other::add);
+
+        hll.merge(other);
+        long once = hll.estimate();
+        hll.merge(other);
+
+        assertEquals(once, hll.estimate());
+    }
+
+    @Test
+    void mergesSparseIntoDense() {
+        HyperLogLog dense = new HyperLogLog(12);
+        HyperLogLog sparse = new HyperLogLog(12);
+        SplittableRandom random = new SplittableRandom(6);
+        for (int i = 0; i < 50_000; i++) {
+            dense.add(random.nextLong());
+        }
+        for (int i = 0; i < 100; i++) {
+            sparse.add(random.nextLong());
+        }
+
+        dense.merge(sparse);
+
+        assertEquals(50_100, dense.estimate(), 50_100 * 0.05);
+    }
+
+    @Test
+    void rejectsMergingDifferentPrecisions() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void roundTripsSparseAndDenseSketches() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int count : new int[] {0, 50, 20_000}) {
+            HyperLogLog hll = new HyperLogLog(12);
+            for (int i = 0; i < count; i++) {
+                hll.add(random.nextLong());
+            }
+
+            HyperLogLog read = HyperLogLog.fromBytes(ByteBuffer.wrap(hll.toBytes()));
+
+            assertEquals(hll.estimate(), read.estimate());
+            assertArrayEquals(hll.toBytes(), read.toBytes());
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] bytes = new HyperLogLog(12).toBytes();
+        bytes[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(ByteBuffer.wrap(bytes)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntHashMapTest {
+
+    @Test
+    void returnsTheMissingValueForAbsentKeys() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+
+        assertEquals(-1, map.get(42));
+        assertEquals(-1, map.put(42, 7));
+        assertEquals(7, map.put(42, 8));
+        assertEquals(8, map.remove(42));
+        assertEquals(-1, map.get(42));
+    }
+
+    @Test
+    void keepsKeyZeroApartFromFreeSlots() {
+        LongIntHashMap map = new LongIntHashMap(4, -1);
+
+        map.put(0, 5);
+
+        assertTrue(map.containsKey(0));
+        assertEquals(5, map.get(0));
+        assertEquals(1, map.size());
+        assertEquals(5, map.remove(0));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    void findsEveryKeyOfACollidingChainAfterRemovals() {
+        LongIntHashMap map = new LongIntHashMap(100, -1);
+        long[] keys = LongLongHashMapTest.collidingKeys(8, HashMaps.capacityFor(100, 0.7f) - 1);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+
+        map.remove(keys[7]);
+        map.remove(keys[1]);
+        map.remove(keys[2]);
+
+        for (int i = 0; i < keys.length; i++) {
+            boolean removed = i == 7 || i == 1 || i == 2;
+            assertEquals(removed ? -1 : i, map.get(keys[i]), "key " + i);
+        }
+        assertEquals(5, map.size());
+
+        // Freed slots are reused without breaking the chain
+        map.put(keys[1], 100);
+        assertEquals(100, map.get(keys[1]));
+        assertEquals(6, map.get(keys[6]));
+    }
+
+    @Test
+    void matchesAHashMapThroughGrowthAndRemovals() {
+        LongIntHashMap map = new LongIntHashMap(4, Integer.MIN_VALUE);
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextLong(-5_000, 5_000);
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? Integer.MIN_VALUE : previous, map.remove(key));
+            } else {
+                int value = random.nextInt();
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? Integer.MIN_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
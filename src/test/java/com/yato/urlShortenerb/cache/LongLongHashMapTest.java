@@ -0,0 +1,124 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLongHashMapTest {
+
+    @Test
+    void returnsTheMissingValueForAbsentKeys() {
+        LongLongHashMap map = new LongLongHashMap(4, -1);
+
+        assertEquals(-1, map.get(42));
+        assertEquals(-1, map.put(42, 7));
+        assertEquals(7, map.put(42, 8));
+        assertEquals(8, map.get(42));
+        assertEquals(-1, map.remove(43));
+    }
+
+    @Test
+    void keepsKeyZeroApartFromFreeSlots() {
+        LongLongHashMap map = new LongLongHashMap(4, -1);
+
+        map.put(0, 5);
+        map.addTo(0, 2);
+
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.get(0));
+        assertEquals(1, map.size());
+        assertEquals(7, map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void findsEveryKeyOfACollidingChainAfterRemovals() {
+        LongLongHashMap map = new LongLongHashMap(100, 0);
+        long[] keys = collidingKeys(8, HashMaps.capacityFor(100, 0.7f) - 1);
+        for (long key : keys) {
+            map.put(key, key * 10);
+        }
+
+        // Removing from the head and the middle shifts the rest of the chain back
+        map.remove(keys[0]);
+        map.remove(keys[4]);
+
+        for (int i = 0; i < keys.length; i++) {
+            boolean removed = i == 0 || i == 4;
+            assertEquals(!removed, map.containsKey(keys[i]), "key " + i);
+            assertEquals(removed ? 0 : keys[i] * 10, map.get(keys[i]), "key " + i);
+        }
+        assertEquals(6, map.size());
+    }
+
+    @Test
+    void addToStartsAbsentKeysAtZero() {
+        LongLongHashMap map = new LongLongHashMap(4, -1);
+
+        assertEquals(3, map.addTo(9, 3));
+        assertEquals(1, map.addTo(9, -2));
+        assertEquals(1, map.get(9));
+    }
+
+    @Test
+    void matchesAHashMapThroughGrowthAndRemovals() {
+        LongLongHashMap map = new LongLongHashMap(4, Long.MIN_VALUE);
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range, so puts, updates and removes hit the same keys
+            long key = random.nextLong(-5_000, 5_000);
+            if (random.nextInt(3) == 0) {
+                Long previous = expected.remove(key);
+                assertEquals(previous == null ? Long.MIN_VALUE : previous, map.remove(key));
+            } else {
+                long value = random.nextLong();
+                Long previous = expected.put(key, value);
+                assertEquals(previous == null ? Long.MIN_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value.longValue(), map.get(key)));
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        LongLongHashMap map = new LongLongHashMap(4, -1);
+        for (long key = 0; key < 100; key++) {
+            map.put(key, key);
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertFalse(map.containsKey(50));
+        map.forEach((key, value) -> {
+            throw new AssertionError("visited " + key);
+        });
+    }
+
+    /** Keys that all hash to the same home slot of a table with {@code mask}. */
+    static long[] collidingKeys(int count, int mask) {
+        long[] keys = new long[count];
+        int found = 0;
+        int home = HashMaps.slot(1, mask);
+        for (long key = 1; found < count; key++) {
+            if (HashMaps.slot(key, mask) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,194 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedLogTest {
+
+    private static final long MIB = 1 << 20;
+    private static final int FRAME_HEADER = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cutsATornTailOffWhenOpened() throws IOException {
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "a", "b", "c");
+        }
+        Path segment = segments().getFirst();
+        long intact = Files.size(segment);
+        // A frame whose payload never reached the disk
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(FRAME_HEADER + 3).putInt(100).putInt(42).flip());
+        }
+
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            assertEquals(intact, Files.size(segment));
+            append(log, "d");
+
+            assertEquals(List.of("a", "b", "c", "d"), readAll(log, log.committed()));
+            assertEquals(0, log.corruptSegments());
+        }
+    }
+
+    @Test
+    void appendsPastACheckpointAheadOfATruncatedSegment() throws IOException {
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "a", "b", "c");
+            List<String> read = new ArrayList<>();
+            log.commit(log.read(log.committed(), 10, payload -> read.add(decode(payload))));
+            assertEquals(List.of("a", "b", "c"), read);
+        }
+        // The crash lost records the reader had already committed past
+        try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            channel.truncate(FRAME_HEADER + 1);
+        }
+
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            assertEquals(3 * (FRAME_HEADER + 1), log.committed().offset());
+            append(log, "d", "e");
+
+            assertEquals(List.of("d", "e"), readAll(log, log.committed()));
+        }
+    }
+
+    @Test
+    void appendsPastACheckpointIntoASegmentThatWasLost() throws IOException {
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "a");
+            log.commit(log.read(log.committed(), 10, payload -> { }));
+        }
+        // Not even the segment file survived the crash
+        Files.delete(segments().getFirst());
+
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "b");
+
+            assertEquals(List.of("b"), readAll(log, log.committed()));
+        }
+    }
+
+    @Test
+    void skipsTheRestOfACorruptSealedSegment() throws IOException {
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "a", "b", "c");
+        }
+
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            append(log, "d");
+            // Flip a payload byte of "b" in the now sealed first segment
+            try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {'x'}), 2L * FRAME_HEADER + 1);
+            }
+
+            assertEquals(List.of("a", "d"), readAll(log, log.committed()));
+            assertEquals(1, log.corruptSegments());
+        }
+    }
+
+    @Test
+    void rollsToANewSegmentAtSegmentBytes() throws IOException {
+        int payloadBytes = 100_000;
+        int perSegment = (int) (MIB / (FRAME_HEADER + payloadBytes));
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            for (int i = 0; i <= perSegment; i++) {
+                assertTrue(log.append(payload(i, payloadBytes)));
+            }
+
+            List<Path> segments = segments();
+            assertEquals(2, segments.size());
+            assertEquals((long) perSegment * (FRAME_HEADER + payloadBytes), Files.size(segments.get(0)));
+            assertEquals(FRAME_HEADER + payloadBytes, Files.size(segments.get(1)));
+
+            List<Integer> read = new ArrayList<>();
+            SegmentedLog.Position end = log.read(log.committed(), Integer.MAX_VALUE, payload -> {
+                assertEquals(payloadBytes, payload.remaining());
+                read.add((int) payload.get(payload.limit() - 1));
+            });
+            assertEquals(perSegment + 1, read.size());
+            for (int i = 0; i < read.size(); i++) {
+                assertEquals(i, read.get(i).intValue());
+            }
+
+            log.commit(end);
+            assertEquals(List.of(segments.get(1)), segments());
+            assertEquals(FRAME_HEADER + payloadBytes, log.sizeBytes());
+        }
+    }
+
+    @Test
+    void refusesAppendsOnceMaxBytesAreUncommitted() throws IOException {
+        int payloadBytes = 100_000;
+        long maxBytes = 2 * MIB;
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, maxBytes)) {
+            int appended = 0;
+            while (log.append(payload(appended, payloadBytes))) {
+                appended++;
+            }
+
+            assertEquals(maxBytes / (FRAME_HEADER + payloadBytes), appended);
+            assertTrue(log.sizeBytes() <= maxBytes);
+            assertFalse(log.append(payload(appended, payloadBytes)));
+
+            // Reading a whole sealed segment moves past it, and committing that frees its bytes
+            int perSegment = (int) (MIB / (FRAME_HEADER + payloadBytes));
+            SegmentedLog.Position next = log.read(log.committed(), perSegment, payload -> { });
+            assertEquals(0, next.offset());
+            log.commit(next);
+            assertTrue(log.append(payload(appended, payloadBytes)));
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanAReadChunk() throws IOException {
+        try (SegmentedLog log = SegmentedLog.open(dir, MIB, 4 * MIB)) {
+            assertThrows(IllegalArgumentException.class, () -> log.append(ByteBuffer.allocate(SegmentedLog.MAX_RECORD + 1)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> SegmentedLog.open(dir, MIB - 1, 4 * MIB));
+    }
+
+    private static void append(SegmentedLog log, String... records) throws IOException {
+        for (String record : records) {
+            assertTrue(log.append(ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    private static List<String> readAll(SegmentedLog log, SegmentedLog.Position from) throws IOException {
+        List<String> records = new ArrayList<>();
+        log.read(from, Integer.MAX_VALUE, payload -> records.add(decode(payload)));
+        return records;
+    }
+
+    private static String decode(ByteBuffer payload) {
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+
+    private static ByteBuffer payload(int index, int bytes) {
+        ByteBuffer payload = ByteBuffer.allocate(bytes);
+        payload.put(bytes - 1, (byte) index);
+        return payload;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+import com.yato.urlShortenerb.util.ShortCodeCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortCodeIndexTest {
+
+    private static final long DATABASE_ID = 7;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void returnsWhatWasStored() throws IOException {
+        ResolvedUrl expiring = new ResolvedUrl(2L, "https://example.org/ünïcode?q=1",
+                LocalDateTime.of(2030, 1, 2, 3, 4, 5), RedirectPolicy.MOVED_PERMANENTLY, ClickAccounting.BEACON);
+        try (ShortCodeIndex index = ShortCodeIndex.create(dir, 100, DATABASE_ID)) {
+            assertTrue(index.put(code("abc"), url(1)));
+            assertTrue(index.put(code("0abc"), expiring));
+
+            assertEquals(url(1), index.get(code("abc")));
+            assertEquals(expiring, index.get(code("0abc")));
+            assertNull(index.get(code("abd")));
+            assertEquals(2, index.size());
+        }
+    }
+
+    @Test
+    void reopensACleanlyClosedIndex() throws IOException {
+        try (ShortCodeIndex index = ShortCodeIndex.create(dir, 100, DATABASE_ID)) {
+            for (int i = 1; i <= 50; i++) {
+                index.put(code("c" + i), url(i));
+            }
+            index.urlWatermark(50);
+            index.changeWatermark(1_700_000_000_000L);
+        }
+
+        try (ShortCodeIndex index = ShortCodeIndex.open(dir, DATABASE_ID)) {
+            assertNotNull(index);
+            assertEquals(50, index.size());
+            assertEquals(50, index.urlWatermark());
+            assertEquals(1_700_000_000_000L, index.changeWatermark());
+            for (int i = 1; i <= 50; i++) {
+                assertEquals(url(i), index.get(code("c" + i)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsAnIndexThatWasNotClosed() throws IOException {
+        ShortCodeIndex crashed = ShortCodeIndex.create(dir, 100, DATABASE_ID);
+        crashed.put(code("abc"), url(1));
+        // Flushed but never closed, as after a kill: the files are still marked dirty
+        crashed.force();
+
+        assertNull(ShortCodeIndex.open(dir, DATABASE_ID));
+
+        crashed.close();
+        ShortCodeIndex reopened = ShortCodeIndex.open(dir, DATABASE_ID);
+        assertNotNull(reopened);
+        // Opening marks it dirty again until this one is closed too
+        assertNull(ShortCodeIndex.open(dir, DATABASE_ID));
+        reopened.close();
+    }
+
+    @Test
+    void rejectsAnIndexOfAnotherDatabase() throws IOException {
+        ShortCodeIndex.create(dir, 100, DATABASE_ID).close();
+
+        assertNull(ShortCodeIndex.open(dir, DATABASE_ID + 1));
+    }
+
+    @Test
+    void rejectsATruncatedOrMissingIndex() throws IOException {
+        assertNull(ShortCodeIndex.open(dir, DATABASE_ID));
+
+        ShortCodeIndex.create(dir, 100, DATABASE_ID).close();
+        try (FileChannel channel = FileChannel.open(dir.resolve("codes.idx"), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 16);
+        }
+
+        assertNull(ShortCodeIndex.open(dir, DATABASE_ID));
+    }
+
+    @Test
+    void removedCodesStayGoneUntilStoredAgain() throws IOException {
+        try (ShortCodeIndex index = ShortCodeIndex.create(dir, 100, DATABASE_ID)) {
+            index.put(code("abc"), url(1));
+            index.put(code("abd"), url(2));
+
+            index.remove(code("abc"));
+            index.remove(code("zzz"));
+
+            assertNull(index.get(code("abc")));
+            assertEquals(url(2), index.get(code("abd")));
+            assertEquals(1, index.size());
+
+            index.put(code("abc"), url(3));
+            assertEquals(url(3), index.get(code("abc")));
+            assertEquals(2, index.size());
+        }
+    }
+
+    @Test
+    void refusesWritesWhenFullUntilGrown() throws IOException {
+        try (ShortCodeIndex index = ShortCodeIndex.create(dir, 1, DATABASE_ID)) {
+            int stored = 0;
+            while (index.put(code("k" + stored), url(stored + 1))) {
+                stored++;
+            }
+            assertTrue(stored > 0);
+            assertFalse(index.tryPut(code("k" + stored), url(stored + 1)));
+            // Replacing an existing code needs no new slot
+            assertTrue(index.put(code("k0"), url(1_000)));
+
+            assertTrue(index.ensureCapacity(1_000));
+            for (int i = stored; i < stored + 1_000; i++) {
+                assertTrue(index.put(code("k" + i), url(i + 1)), "after growing, " + i);
+            }
+
+            assertEquals(stored + 1_000, index.size());
+            assertEquals(url(1_000), index.get(code("k0")));
+            for (int i = 1; i < stored + 1_000; i++) {
+                assertEquals(url(i + 1), index.get(code("k" + i)));
+            }
+        }
+
+        try (ShortCodeIndex index = ShortCodeIndex.open(dir, DATABASE_ID)) {
+            assertNotNull(index);
+            assertEquals(url(500), index.get(code("k499")));
+        }
+    }
+
+    private static long code(String code) {
+        return ShortCodeCodec.pack(code);
+    }
+
+    private static ResolvedUrl url(long id) {
+        return new ResolvedUrl(id, "https://example.com/" + id, null, RedirectPolicy.TEMPORARY, ClickAccounting.REDIRECT);
+    }
+}
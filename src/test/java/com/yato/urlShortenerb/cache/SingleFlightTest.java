@@ -0,0 +1,209 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.exception.DbBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsTheLoaderOnceWhenNothingIsInFlight() {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("a", flight.load("k", () -> {
+            calls.incrementAndGet();
+            return "a";
+        }));
+        // Nothing is remembered once the load is done
+        assertEquals("b", flight.load("k", () -> "b"));
+
+        assertEquals(1, calls.get());
+        SingleFlightStats stats = flight.stats();
+        assertEquals(2, stats.loads());
+        assertEquals(0, stats.coalesced());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void coalescesWaitersOntoTheRunningLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "value";
+        };
+
+        Future<String> leader = startLeader(flight, loader);
+        List<Future<String>> waiters = start(WAITERS, () -> flight.load("k", loader));
+        awaitCoalesced(flight, waiters);
+        release.countDown();
+
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> waiter : waiters) {
+            assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(WAITERS, flight.stats().coalesced());
+        assertEquals(0, flight.stats().inFlight());
+    }
+
+    @Test
+    void letsOneTimedOutWaiterReplaceAStuckLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(200));
+        CountDownLatch releaseStuck = new CountDownLatch(1);
+        CountDownLatch releaseTakeover = new CountDownLatch(1);
+        AtomicInteger takeovers = new AtomicInteger();
+
+        Future<String> stuck = startLeader(flight, () -> {
+            await(releaseStuck);
+            return "stale";
+        });
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<String>> waiters = start(WAITERS, () -> {
+            go.await();
+            return flight.load("k", () -> {
+                takeovers.incrementAndGet();
+                await(releaseTakeover);
+                return "fresh";
+            });
+        });
+        go.countDown();
+
+        // All but the one that took over give up once the replacement is slow too
+        List<Future<String>> loading = new ArrayList<>();
+        for (Future<String> waiter : waiters) {
+            try {
+                waiter.get(1, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(DbBusyException.class, e.getCause());
+            } catch (TimeoutException e) {
+                loading.add(waiter);
+            }
+        }
+        releaseTakeover.countDown();
+        releaseStuck.countDown();
+
+        assertEquals(1, loading.size());
+        assertEquals("fresh", loading.getFirst().get(5, TimeUnit.SECONDS));
+        assertEquals(1, takeovers.get());
+        assertEquals("stale", stuck.get(5, TimeUnit.SECONDS));
+        assertEquals(WAITERS + WAITERS - 1, flight.stats().timeouts());
+        assertEquals(0, flight.stats().inFlight());
+    }
+
+    @Test
+    void loadsItselfAfterTimingOutAloneOnAStuckLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stuck = startLeader(flight, () -> {
+            await(release);
+            return "stale";
+        });
+
+        assertEquals("fresh", flight.load("k", () -> "fresh"));
+
+        release.countDown();
+        assertEquals("stale", stuck.get(5, TimeUnit.SECONDS));
+        assertEquals(1, flight.stats().timeouts());
+        assertEquals(2, flight.stats().loads());
+    }
+
+    @Test
+    void propagatesTheLeadersExceptionToWaiters() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+        Supplier<String> loader = () -> {
+            await(release);
+            throw failure;
+        };
+
+        Future<String> leader = startLeader(flight, loader);
+        List<Future<String>> waiters = start(WAITERS, () -> flight.load("k", loader));
+        awaitCoalesced(flight, waiters);
+        release.countDown();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertSame(failure, thrown.getCause());
+        for (Future<String> waiter : waiters) {
+            thrown = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertSame(failure, thrown.getCause());
+        }
+
+        // A failed load is not remembered
+        assertEquals(0, flight.stats().inFlight());
+        assertEquals("ok", flight.load("k", () -> "ok"));
+    }
+
+    private Future<String> startLeader(SingleFlight<String, String> flight, Supplier<String> loader) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> flight.load("k", () -> {
+            started.countDown();
+            return loader.get();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    private <T> List<Future<T>> start(int count, Callable<T> task) {
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(task));
+        }
+        return futures;
+    }
+
+    // Waiters register nowhere, so give them time to reach the in-flight future
+    private static void awaitCoalesced(SingleFlight<String, String> flight, List<? extends Future<?>> waiters)
+            throws InterruptedException {
+        Thread.sleep(200);
+        for (Future<?> waiter : waiters) {
+            assertFalse(waiter.isDone(), "waiter finished before the load did");
+        }
+        assertEquals(1, flight.stats().inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
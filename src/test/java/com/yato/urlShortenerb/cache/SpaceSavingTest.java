@@ -0,0 +1,111 @@
+package com.yato.urlShortenerb.cache;
+
+import com.yato.urlShortenerb.dto.NameCount;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyUntilFull() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add("a", 3);
+        summary.add("b", 1);
+        summary.add("a", 2);
+
+        assertEquals(List.of(new NameCount("a", 5), new NameCount("b", 1)), summary.top(10));
+    }
+
+    @Test
+    void keepsHeavyHittersAmongManyRareItems() {
+        SpaceSaving summary = new SpaceSaving(8);
+        for (int i = 0; i < 2_000; i++) {
+            summary.add("rare-" + i, 1);
+            if (i % 2 == 0) {
+                summary.add("heavy", 1);
+            }
+            if (i % 4 == 0) {
+                summary.add("medium", 1);
+            }
+        }
+
+        List<NameCount> top = summary.top(2);
+
+        assertEquals("heavy", top.get(0).name());
+        assertEquals("medium", top.get(1).name());
+        // Counts may be overestimated, never under
+        assertTrue(top.get(0).clicks() >= 1_000);
+        assertTrue(top.get(1).clicks() >= 500);
+    }
+
+    @Test
+    void mergeKeepsHeavyHittersOfBothSides() {
+        SpaceSaving left = new SpaceSaving(8);
+        SpaceSaving right = new SpaceSaving(8);
+        for (int i = 0; i < 1_000; i++) {
+            left.add("left-rare-" + i, 1);
+            right.add("right-rare-" + i, 1);
+            if (i % 2 == 0) {
+                left.add("shared", 1);
+                right.add("shared", 1);
+            }
+            if (i % 3 == 0) {
+                right.add("right-only", 1);
+            }
+        }
+
+        left.merge(right);
+        Map<String, Long> top = left.top(8).stream().collect(Collectors.toMap(NameCount::name, NameCount::clicks));
+
+        assertEquals("shared", left.top(1).get(0).name());
+        assertTrue(top.get("shared") >= 1_000);
+        assertTrue(top.get("right-only") >= 334);
+    }
+
+    @Test
+    void mergeIntoEmptySummaryCopiesCounts() {
+        SpaceSaving empty = new SpaceSaving(4);
+        SpaceSaving other = new SpaceSaving(4);
+        other.add("a", 7);
+        other.add("b", 2);
+
+        empty.merge(other);
+
+        assertEquals(other.top(4), empty.top(4));
+    }
+
+    @Test
+    void roundTripsCountsAndErrors() {
+        SpaceSaving summary = new SpaceSaving(4);
+        for (int i = 0; i < 100; i++) {
+            summary.add("item-" + (i % 7), i);
+        }
+        summary.add("ünïcode.example", 1_000);
+
+        SpaceSaving read = SpaceSaving.fromBytes(ByteBuffer.wrap(summary.toBytes()));
+        read.add("late", 1);
+        summary.add("late", 1);
+
+        assertEquals(summary.top(4), read.top(4));
+    }
+
+    @Test
+    void rejectsMoreItemsThanItsCapacity() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a", 1);
+        summary.add("b", 1);
+        byte[] bytes = summary.toBytes();
+        // Capacity follows the version byte
+        ByteBuffer.wrap(bytes).putInt(1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> SpaceSaving.fromBytes(ByteBuffer.wrap(bytes)));
+    }
+}
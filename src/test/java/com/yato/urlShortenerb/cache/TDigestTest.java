@@ -0,0 +1,125 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TDigestTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Test
+    void estimatesQuantilesOfAUniformStream() {
+        TDigest digest = new TDigest(100);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            digest.add(random.nextDouble(86_400));
+        }
+
+        for (double q : QUANTILES) {
+            assertEquals(q * 86_400, digest.quantile(q), 86_400 * 0.01, "quantile " + q);
+        }
+        assertEquals(100_000, digest.count());
+    }
+
+    @Test
+    void keepsTheExtremesExact() {
+        TDigest digest = new TDigest(100);
+        for (int i = 1; i <= 10_000; i++) {
+            digest.add(i);
+        }
+
+        assertEquals(1, digest.quantile(0), 0);
+        assertEquals(10_000, digest.quantile(1), 0);
+    }
+
+    @Test
+    void isNaNWhenEmptyAndExactForOneValue() {
+        TDigest digest = new TDigest(100);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+
+        digest.add(42);
+        assertEquals(42, digest.quantile(0.5), 0);
+    }
+
+    @Test
+    void mergedDigestMatchesOneOverAllValues() {
+        TDigest left = new TDigest(100);
+        TDigest right = new TDigest(100);
+        TDigest all = new TDigest(100);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 50_000; i++) {
+            // Overlapping ranges, so the merge has to interleave centroids
+            double low = random.nextDouble(40_000);
+            double high = 20_000 + random.nextDouble(60_000);
+            left.add(low);
+            right.add(high);
+            all.add(low);
+            all.add(high);
+        }
+
+        left.merge(right);
+
+        assertEquals(100_000, left.count());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), left.quantile(q), 80_000 * 0.01, "quantile " + q);
+        }
+        // A quarter of the values lie below 20000 and another quarter above 50000
+        assertEquals(20_000, left.quantile(0.25), 80_000 * 0.01);
+        assertEquals(50_000, left.quantile(0.75), 80_000 * 0.01);
+    }
+
+    @Test
+    void mergingAnEmptyDigestChangesNothing() {
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < 1_000; i++) {
+            digest.add(i);
+        }
+        double median = digest.quantile(0.5);
+
+        digest.merge(new TDigest(100));
+
+        assertEquals(1_000, digest.count());
+        assertEquals(median, digest.quantile(0.5), 0);
+    }
+
+    @Test
+    void staysBoundedInSize() {
+        TDigest digest = new TDigest(100);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 1_000_000; i++) {
+            digest.add(random.nextGaussian());
+        }
+
+        // 45 header bytes and 16 per centroid
+        assertTrue(digest.toBytes().length < 45 + 16 * 200);
+    }
+
+    @Test
+    void roundTripsCentroidsAndBufferedValues() {
+        TDigest digest = new TDigest(100);
+        SplittableRandom random = new SplittableRandom(4);
+        for (int i = 0; i < 10_007; i++) {
+            digest.add(random.nextDouble(1_000));
+        }
+
+        TDigest read = TDigest.fromBytes(ByteBuffer.wrap(digest.toBytes()));
+
+        assertEquals(digest.count(), read.count());
+        for (double q : QUANTILES) {
+            assertEquals(digest.quantile(q), read.quantile(q), 0, "quantile " + q);
+        }
+        assertEquals(digest.quantile(0), read.quantile(0), 0);
+        assertEquals(digest.quantile(1), read.quantile(1), 0);
+    }
+
+    @Test
+    void rejectsNaN() {
+        assertThrows(IllegalArgumentException.class, () -> new TDigest(100).add(Double.NaN));
+    }
+}
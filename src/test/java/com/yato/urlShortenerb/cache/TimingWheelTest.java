@@ -0,0 +1,129 @@
+package com.yato.urlShortenerb.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void firesAtTheDeadlineAndNotBefore() {
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(10), 8, 2, 0);
+        wheel.schedule(1, 55);
+
+        assertArrayEquals(new long[0], wheel.advance(59));
+        assertArrayEquals(new long[] {1}, wheel.advance(60));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void refusesDeadlinesThatHavePassed() {
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(10), 8, 2, 1_000);
+
+        assertFalse(wheel.schedule(1, 1_000));
+        assertFalse(wheel.schedule(2, 500));
+        assertTrue(wheel.schedule(3, 1_001));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cascadesDeadlinesFromUpperLevelsAndTheOverflow() {
+        // 4 slots on 2 levels: level 0 covers 4 ticks, level 1 covers 16, later deadlines overflow
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 4, 2, 0);
+        long[] deadlines = {3, 7, 15, 16, 17, 40, 63, 64, 100, 1_000};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        for (int i = 0; i < deadlines.length; i++) {
+            assertArrayEquals(new long[0], wheel.advance(deadlines[i] - 1), "before " + deadlines[i]);
+            assertArrayEquals(new long[] {i}, wheel.advance(deadlines[i]), "at " + deadlines[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void returnsKeysInDeadlineOrderWhenAdvancingFarAhead() {
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 4, 3, 0);
+        long[] deadlines = {500, 2, 90, 33, 64, 7, 300};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(deadlines[i], deadlines[i]);
+        }
+
+        assertArrayEquals(new long[] {2, 7, 33, 64, 90, 300, 500}, wheel.advance(1_000));
+    }
+
+    @Test
+    void rescheduleAndCancelReplaceTheEarlierDeadline() {
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 4, 2, 0);
+        wheel.schedule(1, 10);
+        wheel.schedule(2, 10);
+        wheel.schedule(1, 50);
+        wheel.cancel(2);
+
+        assertArrayEquals(new long[0], wheel.advance(49));
+        assertArrayEquals(new long[] {1}, wheel.advance(50));
+    }
+
+    @Test
+    void matchesASortedModelUnderRandomSchedules() {
+        SplittableRandom random = new SplittableRandom(1);
+        long tick = 5;
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(tick), 8, 3, 0);
+        Map<Long, Long> pending = new HashMap<>();
+        long now = 0;
+        for (int step = 0; step < 20_000; step++) {
+            long key = random.nextLong(1, 2_000);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                long deadline = now + random.nextLong(1, 10_000);
+                assertTrue(wheel.schedule(key, deadline));
+                pending.put(key, deadline);
+            } else if (action < 7) {
+                wheel.cancel(key);
+                pending.remove(key);
+            } else {
+                now += random.nextLong(0, 200);
+                long nowTick = now / tick;
+                List<Long> due = new ArrayList<>();
+                pending.forEach((k, deadline) -> {
+                    // Deadlines round up to the next tick
+                    if ((deadline + tick - 1) / tick <= nowTick) {
+                        due.add(k);
+                    }
+                });
+                due.sort((a, b) -> Long.compare((pending.get(a) + tick - 1) / tick, (pending.get(b) + tick - 1) / tick));
+
+                long[] fired = wheel.advance(now);
+
+                assertEquals(due.size(), fired.length, "fired at " + now);
+                for (int i = 0; i < fired.length; i++) {
+                    assertTrue(due.contains(fired[i]), "early " + fired[i]);
+                    if (i > 0) {
+                        assertTrue((pending.get(fired[i - 1]) + tick - 1) / tick <= (pending.get(fired[i]) + tick - 1) / tick,
+                                "out of order at " + now);
+                    }
+                }
+                due.forEach(pending::remove);
+            }
+            assertEquals(pending.size(), wheel.size());
+        }
+    }
+
+    @Test
+    void rejectsWheelsThatOverflowALong() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(Duration.ofMillis(1), 1 << 16, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(Duration.ZERO, 8, 2, 0));
+    }
+}
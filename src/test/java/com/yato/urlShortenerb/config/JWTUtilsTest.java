@@ -0,0 +1,113 @@
+package com.yato.urlShortenerb.config;
+
+import com.yato.urlShortenerb.cache.BoundedTtlCache;
+import com.yato.urlShortenerb.dto.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JWTUtilsTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hs256-keys";
+
+    private final BoundedTtlCache<String, VerifiedToken> tokenCache = new BoundedTtlCache<>(100, Duration.ofHours(1));
+
+    @Test
+    void verifiesAndCachesAValidToken() {
+        JWTUtils jwt = jwtUtils(60_000);
+        String token = jwt.generateToken("user@example.com");
+
+        assertEquals(Optional.of("user@example.com"), jwt.verify(token));
+        assertEquals(Optional.of("user@example.com"), jwt.verify(token));
+
+        assertEquals(1, tokenCache.size());
+        assertEquals(1, tokenCache.stats().hits());
+    }
+
+    @Test
+    void rejectsACachedTokenOnceItExpires() throws InterruptedException {
+        JWTUtils jwt = jwtUtils(1_000);
+        String token = jwt.generateToken("user@example.com");
+        assertTrue(jwt.verify(token).isPresent());
+        long hits = tokenCache.stats().hits();
+
+        // exp has whole-second precision, so wait past the next second boundary
+        Thread.sleep(2_100);
+
+        assertEquals(Optional.empty(), jwt.verify(token));
+        // Rejected from the cache entry, which the cache itself would have kept for an hour
+        assertEquals(hits + 1, tokenCache.stats().hits());
+        assertEquals(0, tokenCache.size());
+        assertEquals(Optional.empty(), jwt.verify(token));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        JWTUtils jwt = jwtUtils(60_000);
+        String forged = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-that-is-long-enough-for-hs256".getBytes(StandardCharsets.UTF_8)),
+                        SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals(Optional.empty(), jwt.verify(forged));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedTokens() {
+        JWTUtils jwt = jwtUtils(60_000);
+        String token = jwt.generateToken("user@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertEquals(Optional.empty(), jwt.verify(tampered));
+        assertEquals(Optional.empty(), jwt.verify("not.a.token"));
+        assertEquals(Optional.empty(), jwt.verify(""));
+        assertEquals(Optional.empty(), jwt.verify(null));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void rejectsTokensWithoutASubjectWithoutCachingThem() {
+        JWTUtils jwt = jwtUtils(60_000);
+        String token = Jwts.builder()
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals(Optional.empty(), jwt.verify(token));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void rejectsTokensThatExpiredBeforeTheyWereCached() {
+        JWTUtils jwt = jwtUtils(60_000);
+        String token = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 5_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals(Optional.empty(), jwt.verify(token));
+        assertEquals(0, tokenCache.size());
+    }
+
+    private JWTUtils jwtUtils(long expirationMs) {
+        JWTUtils jwt = new JWTUtils(tokenCache);
+        ReflectionTestUtils.setField(jwt, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwt, "jwtExpirationMs", expirationMs);
+        jwt.init();
+        return jwt;
+    }
+}
@@ -0,0 +1,158 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.InMemorySharedCache;
+import com.yato.urlShortenerb.cache.SharedCache;
+import com.yato.urlShortenerb.dto.ResolvedUrl;
+import com.yato.urlShortenerb.entity.ClickAccounting;
+import com.yato.urlShortenerb.entity.RedirectPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedCacheTierTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private final InMemorySharedCache redis = new InMemorySharedCache();
+    private final SharedCacheTier nodeA = tier(redis);
+    private final SharedCacheTier nodeB = tier(redis);
+
+    @Test
+    void sharesValuesBetweenNodes() {
+        nodeA.put("short-code:abc", url("https://example.com/a"), TTL);
+
+        assertEquals(url("https://example.com/a"), nodeB.get("short-code:abc", ResolvedUrl.class));
+        assertNull(nodeB.get("short-code:abd", ResolvedUrl.class));
+        assertEquals(1, nodeB.stats().hits());
+        assertEquals(1, nodeB.stats().misses());
+    }
+
+    @Test
+    void deliversInvalidationsToOtherNodesOnly() {
+        List<String> onA = new ArrayList<>();
+        List<String> onB = new ArrayList<>();
+        List<String> clicksOnB = new ArrayList<>();
+        nodeA.subscribe(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, onA::add);
+        nodeB.subscribe(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, onB::add);
+        nodeB.subscribe(SharedCacheTier.Topic.ANALYTICS_CLICKS, clicksOnB::add);
+
+        nodeA.publish(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, "abc");
+        nodeB.publish(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, "xyz");
+
+        assertEquals(List.of("xyz"), onA);
+        assertEquals(List.of("abc"), onB);
+        assertTrue(clicksOnB.isEmpty());
+        assertEquals(1, nodeB.stats().messagesReceived());
+    }
+
+    @Test
+    void holdsAnInvalidatedKeyAgainstStaleLoads() throws InterruptedException {
+        nodeA.put("short-code:abc", url("https://example.com/old"), TTL);
+
+        // Node B updates the row while node A is still loading the old one
+        nodeB.evictAndHold("short-code:abc", Duration.ofMillis(100));
+        nodeA.putIfAbsent("short-code:abc", url("https://example.com/old"), TTL);
+
+        assertNull(nodeA.get("short-code:abc", ResolvedUrl.class));
+        assertNull(nodeB.get("short-code:abc", ResolvedUrl.class));
+
+        Thread.sleep(150);
+        nodeA.putIfAbsent("short-code:abc", url("https://example.com/new"), TTL);
+        assertEquals(url("https://example.com/new"), nodeB.get("short-code:abc", ResolvedUrl.class));
+
+        // An entry that is already there is not replaced by a later load
+        nodeB.putIfAbsent("short-code:abc", url("https://example.com/other"), TTL);
+        assertEquals(url("https://example.com/new"), nodeA.get("short-code:abc", ResolvedUrl.class));
+    }
+
+    @Test
+    void degradesToMissesWhenTheSharedCacheFails() {
+        SharedCacheTier tier = tier(new FailingSharedCache());
+        List<String> received = new ArrayList<>();
+
+        tier.subscribe(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, received::add);
+        tier.put("short-code:abc", url("https://example.com/a"), TTL);
+        tier.putIfAbsent("short-code:abc", url("https://example.com/a"), TTL);
+        tier.evictAndHold("short-code:abc", TTL);
+        tier.evict("short-code:abc");
+        tier.publish(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, "abc");
+
+        assertTrue(tier.enabled());
+        assertNull(tier.get("short-code:abc", ResolvedUrl.class));
+        assertEquals(7, tier.stats().errors());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void doesNothingWithoutASharedCache() {
+        SharedCacheTier tier = tier(null);
+        List<String> received = new ArrayList<>();
+        tier.subscribe(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, received::add);
+
+        tier.put("short-code:abc", url("https://example.com/a"), TTL);
+        tier.publish(SharedCacheTier.Topic.SHORT_CODE_INVALIDATED, "abc");
+
+        assertFalse(tier.enabled());
+        assertNull(tier.get("short-code:abc", ResolvedUrl.class));
+        assertTrue(received.isEmpty());
+        assertEquals(0, tier.stats().errors());
+    }
+
+    private static SharedCacheTier tier(SharedCache shared) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (shared != null) {
+            beans.addBean("sharedCache", shared);
+        }
+        return new SharedCacheTier(beans.getBeanProvider(SharedCache.class), JsonMapper.builder().build(), "test:");
+    }
+
+    private static ResolvedUrl url(String longUrl) {
+        return new ResolvedUrl(1L, longUrl, LocalDateTime.of(2030, 1, 1, 0, 0),
+                RedirectPolicy.TEMPORARY, ClickAccounting.REDIRECT);
+    }
+
+    // Stands in for Redis being unreachable
+    private static final class FailingSharedCache implements SharedCache {
+
+        @Override
+        public String get(String key) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public boolean putIfAbsent(String key, String value, Duration ttl) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void evict(String key) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void publish(String channel, String message) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void subscribe(String channel, Consumer<String> listener) {
+            throw new IllegalStateException("connection refused");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.yato.urlShortenerb.service.impl;
+
+import com.yato.urlShortenerb.cache.LongLongHashMap;
+import com.yato.urlShortenerb.repo.ClickEventBatchRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedClickCounterStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 200_000;
+    private static final int URLS = 20;
+
+    @Test
+    void flushesEveryIncrementAfterDrainedCountersAreRemoved() throws InterruptedException {
+        RecordingRepo repo = new RecordingRepo(0);
+        StripedClickCounterStore store = new StripedClickCounterStore(repo);
+
+        long[] expected = race(store);
+
+        assertFlushed(expected, store, repo);
+    }
+
+    @Test
+    void keepsClicksOfFailedFlushes() throws InterruptedException {
+        RecordingRepo repo = new RecordingRepo(5);
+        StripedClickCounterStore store = new StripedClickCounterStore(repo);
+
+        long[] expected = race(store);
+
+        assertTrue(repo.failures.get() > 0, "no flush failed");
+        assertFlushed(expected, store, repo);
+    }
+
+    @Test
+    void dropsPendingClicksOfForgottenUrls() {
+        RecordingRepo repo = new RecordingRepo(0);
+        StripedClickCounterStore store = new StripedClickCounterStore(repo);
+        store.increment(1);
+        store.increment(2);
+
+        store.forget(1);
+        store.increment(1);
+        store.flush();
+
+        assertEquals(1, repo.flushed(1));
+        assertEquals(1, repo.flushed(2));
+        assertEquals(0, store.pending(1));
+    }
+
+    // Increments a few urls from several threads while another thread flushes as fast as it can
+    private static long[] race(StripedClickCounterStore store) throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                store.flush();
+            }
+        });
+        flusher.start();
+
+        long[] expected = new long[URLS];
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < INCREMENTS; i++) {
+                    store.increment((thread + i) % URLS);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        flusher.join();
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < INCREMENTS; i++) {
+                expected[(t + i) % URLS]++;
+            }
+        }
+        return expected;
+    }
+
+    private static void assertFlushed(long[] expected, StripedClickCounterStore store, RecordingRepo repo) {
+        repo.failEvery = 0;
+        store.flush();
+        store.flush();
+        long total = 0;
+        for (int id = 0; id < URLS; id++) {
+            assertEquals(expected[id], repo.flushed(id), "url " + id);
+            assertEquals(0, store.pending(id), "url " + id);
+            total += repo.flushed(id);
+        }
+        assertEquals((long) THREADS * INCREMENTS, total);
+    }
+
+    private static final class RecordingRepo extends ClickEventBatchRepo {
+
+        private final ConcurrentHashMap<Long, LongAdder> clicks = new ConcurrentHashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile int failEvery;
+
+        RecordingRepo(int failEvery) {
+            super(null, null, null);
+            this.failEvery = failEvery;
+        }
+
+        @Override
+        public void addClicks(LongLongHashMap deltas) {
+            int every = failEvery;
+            if (every > 0 && calls.incrementAndGet() % every == 0) {
+                failures.incrementAndGet();
+                throw new TransientDataAccessResourceException("connection lost");
+            }
+            deltas.forEach((id, delta) -> clicks.computeIfAbsent(id, key -> new LongAdder()).add(delta));
+        }
+
+        long flushed(long urlId) {
+            LongAdder adder = clicks.get(urlId);
+            return adder == null ? 0 : adder.sum();
+        }
+    }
+}
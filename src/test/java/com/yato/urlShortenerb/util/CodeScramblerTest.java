@@ -0,0 +1,69 @@
+package com.yato.urlShortenerb.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeScramblerTest {
+
+    @Test
+    void mapsEveryValueToADistinctValueInRange() {
+        // Powers of two, odd bit widths and the base62 widths the allocator uses
+        long[] sizes = {2, 3, 1000, 1 << 13, (1 << 13) + 1, (1 << 17) - 1, Base62.keyspace(2), Base62.keyspace(3)};
+        for (long size : sizes) {
+            for (long key : new long[] {0, 42, -7}) {
+                CodeScrambler scrambler = new CodeScrambler(size, key);
+                BitSet seen = new BitSet((int) size);
+                for (long value = 0; value < size; value++) {
+                    long scrambled = scrambler.scramble(value);
+                    assertTrue(scrambled >= 0 && scrambled < size, "out of range for size " + size);
+                    assertTrue(!seen.get((int) scrambled), "collision for size " + size + " key " + key);
+                    seen.set((int) scrambled);
+                }
+                assertEquals(size, seen.cardinality());
+            }
+        }
+    }
+
+    @Test
+    void isDeterministicPerKeyAndDiffersAcrossKeys() {
+        long size = Base62.keyspace(4);
+        CodeScrambler first = new CodeScrambler(size, 1);
+        CodeScrambler again = new CodeScrambler(size, 1);
+        CodeScrambler other = new CodeScrambler(size, 2);
+
+        int differing = 0;
+        for (long value = 0; value < 1_000; value++) {
+            assertEquals(first.scramble(value), again.scramble(value));
+            if (first.scramble(value) != other.scramble(value)) {
+                differing++;
+            }
+        }
+        assertTrue(differing > 990, "keys produced nearly the same permutation");
+    }
+
+    @Test
+    void spreadsSequentialValuesAcrossTheKeyspace() {
+        long size = Base62.keyspace(7);
+        CodeScrambler scrambler = new CodeScrambler(size, 99);
+
+        long[] halves = new long[2];
+        for (long value = 0; value < 10_000; value++) {
+            halves[scrambler.scramble(value) < size / 2 ? 0 : 1]++;
+        }
+        assertTrue(Math.abs(halves[0] - halves[1]) < 500, "sequential values cluster in one half");
+    }
+
+    @Test
+    void rejectsValuesOutsideTheRange() {
+        CodeScrambler scrambler = new CodeScrambler(1000, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> scrambler.scramble(-1));
+        assertThrows(IllegalArgumentException.class, () -> scrambler.scramble(1000));
+        assertThrows(IllegalArgumentException.class, () -> new CodeScrambler(1, 0));
+    }
+}
@@ -0,0 +1,61 @@
+package com.yato.urlShortenerb.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortCodeCodecTest {
+
+    @Test
+    void unpacksWhatWasPacked() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            int length = random.nextInt(1, ShortCodeCodec.MAX_LENGTH + 1);
+            StringBuilder code = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                code.append(Base62.ALPHABET.charAt(random.nextInt(Base62.BASE)));
+            }
+
+            long packed = ShortCodeCodec.pack(code);
+
+            assertNotEquals(ShortCodeCodec.NONE, packed);
+            assertEquals(code.toString(), ShortCodeCodec.unpack(packed));
+        }
+    }
+
+    @Test
+    void keepsLeadingZerosApart() {
+        Set<Long> packed = new HashSet<>();
+        for (String code : new String[] {"0", "00", "000", "0000000000", "1", "01", "001"}) {
+            assertTrue(packed.add(ShortCodeCodec.pack(code)), code);
+        }
+        assertEquals("0000000000", ShortCodeCodec.unpack(ShortCodeCodec.pack("0000000000")));
+    }
+
+    @Test
+    void packsTheLongestCodesAtBothEndsOfTheAlphabet() {
+        assertEquals("ZZZZZZZZZZ", ShortCodeCodec.unpack(ShortCodeCodec.pack("ZZZZZZZZZZ")));
+        assertEquals("a0Z", ShortCodeCodec.unpack(ShortCodeCodec.pack("a0Z")));
+    }
+
+    @Test
+    void returnsNoneForCodesThatCannotBePacked() {
+        assertEquals(ShortCodeCodec.NONE, ShortCodeCodec.pack(""));
+        assertEquals(ShortCodeCodec.NONE, ShortCodeCodec.pack("00000000000"));
+        assertEquals(ShortCodeCodec.NONE, ShortCodeCodec.pack("abc-def"));
+        assertEquals(ShortCodeCodec.NONE, ShortCodeCodec.pack("abcé"));
+    }
+
+    @Test
+    void refusesToUnpackNone() {
+        assertThrows(IllegalArgumentException.class, () -> ShortCodeCodec.unpack(ShortCodeCodec.NONE));
+        assertThrows(IllegalArgumentException.class, () -> ShortCodeCodec.unpack(-1L));
+    }
+}